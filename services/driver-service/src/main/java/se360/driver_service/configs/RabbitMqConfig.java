@@ -5,6 +5,7 @@ import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -31,6 +32,37 @@ public class RabbitMqConfig {
         return BindingBuilder.bind(driverLocationQueue).to(driverLocationExchange).with(routingKey);
     }
 
+    // Streaming mode: non-durable exchange, and a local queue that only ever holds the last
+    // few seconds of ticks (older ones expire, the oldest are dropped when it is full)
+    @Bean
+    @ConditionalOnProperty(name = "messaging.location.mode", havingValue = "stream")
+    public TopicExchange driverLocationStreamExchange(
+            @Value("${messaging.location.stream.exchange:driver.location.stream}") String exchangeName) {
+        return new TopicExchange(exchangeName, false, false);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "messaging.location.mode", havingValue = "stream")
+    public Queue driverLocationLiveQueue(
+            @Value("${messaging.location.queue}") String queueName,
+            @Value("${messaging.location.stream.queue-ttl-ms:5000}") int ttlMs,
+            @Value("${messaging.location.stream.queue-max-length:10000}") int maxLength) {
+        return QueueBuilder.nonDurable(queueName + ".live")
+                .ttl(ttlMs)
+                .maxLength(maxLength)
+                .overflow(QueueBuilder.Overflow.dropHead)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "messaging.location.mode", havingValue = "stream")
+    public Binding driverLocationLiveBinding(
+            Queue driverLocationLiveQueue,
+            TopicExchange driverLocationStreamExchange,
+            @Value("${messaging.location.stream.routing-prefix:driver.location}") String routingPrefix) {
+        return BindingBuilder.bind(driverLocationLiveQueue).to(driverLocationStreamExchange).with(routingPrefix + ".#");
+    }
+
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
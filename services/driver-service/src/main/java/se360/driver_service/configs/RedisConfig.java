@@ -1,12 +1,19 @@
 package se360.driver_service.configs;
 
+import java.time.Duration;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import io.lettuce.core.api.StatefulConnection;
+
 @Configuration
 public class RedisConfig {
 
@@ -16,9 +23,37 @@ public class RedisConfig {
     @Value("${spring.data.redis.port:6379}")
     private int redisPort;
 
+    @Value("${spring.data.redis.timeout:2s}")
+    private Duration commandTimeout;
+
+    @Value("${spring.data.redis.lettuce.pool.max-active:32}")
+    private int poolMaxActive;
+
+    @Value("${spring.data.redis.lettuce.pool.max-idle:16}")
+    private int poolMaxIdle;
+
+    @Value("${spring.data.redis.lettuce.pool.max-wait:1s}")
+    private Duration poolMaxWait;
+
+    /**
+     * Plain commands share one multiplexed connection. Pipelines need a
+     * dedicated connection, which without a pool is a new TCP connection per
+     * executePipelined call; the pool caps them at max-active and makes callers
+     * wait at most max-wait, so a burst of (virtual) threads cannot open an
+     * unbounded number of connections.
+     */
     @Bean
     public LettuceConnectionFactory lettuceConnectionFactory() {
-        return new LettuceConnectionFactory(redisHost, redisPort);
+        GenericObjectPoolConfig<StatefulConnection<?, ?>> pool = new GenericObjectPoolConfig<>();
+        pool.setMaxTotal(poolMaxActive);
+        pool.setMaxIdle(poolMaxIdle);
+        pool.setMaxWait(poolMaxWait);
+
+        LettucePoolingClientConfiguration clientConfig = LettucePoolingClientConfiguration.builder()
+                .commandTimeout(commandTimeout)
+                .poolConfig(pool)
+                .build();
+        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(redisHost, redisPort), clientConfig);
     }
 
     @Bean
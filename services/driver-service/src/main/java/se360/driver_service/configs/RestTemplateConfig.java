@@ -1,14 +1,97 @@
 package se360.driver_service.configs;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${trip.service.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${trip.service.http.max-connections-per-route:100}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${trip.service.http.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+
+    @Value("${trip.service.http.read-timeout-ms:3000}")
+    private long readTimeoutMs;
+
+    @Value("${trip.service.http.pool-acquire-timeout-ms:500}")
+    private long poolAcquireTimeoutMs;
+
+    @Value("${trip.service.http.idle-evict-seconds:30}")
+    private long idleEvictSeconds;
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public PoolingHttpClientConnectionManager tripServiceConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        // httpcomponents.httpclient.pool.* (leased, available, pending, max)
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "trip-service")
+                .bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Pooled keep-alive client for forwarding to TripService.
+     *
+     * Waiting for a pooled connection is bounded by
+     * {@code pool-acquire-timeout-ms}, so a saturated TripService makes callers
+     * fail fast instead of queueing. Every response status is passed through
+     * to the caller as-is; 4xx from TripService (e.g. 409 trip already
+     * assigned) is a normal result, not an error. Forward latency is recorded
+     * as {@code http.client.requests} via the Boot-provided builder.
+     */
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+            PoolingHttpClientConnectionManager tripServiceConnectionManager) {
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(tripServiceConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .build();
+
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .errorHandler(new PassThroughErrorHandler())
+                .build();
+    }
+
+    private static final class PassThroughErrorHandler implements ResponseErrorHandler {
+        @Override
+        public boolean hasError(ClientHttpResponse response) {
+            return false;
+        }
     }
 }
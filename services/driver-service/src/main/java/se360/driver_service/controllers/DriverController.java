@@ -1,17 +1,16 @@
 package se360.driver_service.controllers;
 
 import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
-import se360.driver_service.models.AcceptTripRequest;
+import se360.driver_service.models.NearbyDriver;
+import se360.driver_service.models.VehicleType;
+import se360.driver_service.services.ClosedTripCache;
+import se360.driver_service.services.DriverLocationCoalescer;
 import se360.driver_service.services.DriverService;
+import se360.driver_service.services.TripServiceClient;
 
 import java.util.List;
 import java.util.UUID;
@@ -21,22 +20,22 @@ import java.util.UUID;
 @RequestMapping("/drivers")
 public class DriverController {
 
-    private static final Logger log = LoggerFactory.getLogger(DriverController.class);
-
     private final DriverService driverService;
-    private final RestTemplate restTemplate;
-
-    @Value("${trip.service.url}")
-    private String tripServiceUrl;
+    private final DriverLocationCoalescer locationCoalescer;
+    private final TripServiceClient tripServiceClient;
+    private final ClosedTripCache closedTripCache;
 
     @PutMapping("/{driverId}/online")
-    public ResponseEntity<String> goOnline(@PathVariable String driverId) {
-        driverService.setDriverOnline(driverId);
+    public ResponseEntity<String> goOnline(
+            @PathVariable String driverId,
+            @RequestParam(required = false) VehicleType vehicleType) {
+        driverService.setDriverOnline(driverId, vehicleType);
         return ResponseEntity.ok("Driver " + driverId + " is now ONLINE");
     }
 
     @PutMapping("/{driverId}/offline")
     public ResponseEntity<String> goOffline(@PathVariable String driverId) {
+        locationCoalescer.forget(driverId);
         driverService.setDriverOffline(driverId);
         return ResponseEntity.ok("Driver " + driverId + " is now OFFLINE");
     }
@@ -51,11 +50,13 @@ public class DriverController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<String>> searchNearbyDrivers(
+    public ResponseEntity<List<NearbyDriver>> searchNearbyDrivers(
             @RequestParam double lat,
             @RequestParam double lng,
-            @RequestParam(defaultValue = "3") double radiusInKm) {
-        List<String> drivers = driverService.findNearbyDrivers(lat, lng, radiusInKm);
+            @RequestParam(defaultValue = "3") double radiusInKm,
+            @RequestParam(defaultValue = "0") int limit,
+            @RequestParam(required = false) VehicleType vehicleType) {
+        List<NearbyDriver> drivers = driverService.findNearbyDrivers(lat, lng, radiusInKm, limit, vehicleType);
         return ResponseEntity.ok(drivers);
     }
 
@@ -64,33 +65,20 @@ public class DriverController {
      * 
      * TripService now owns: early state check + SETNX lock + DB update + event
      * publishing.
-     * DriverService is just a simple forwarder for the accept action.
+     * DriverService is just a simple forwarder for the accept action; see
+     * {@link TripServiceClient} for pooling, timeouts and fast-fail.
      */
     @PutMapping("/{driverId}/trips/{tripId}/accept")
     public ResponseEntity<String> acceptTrip(
             @PathVariable UUID driverId,
             @PathVariable UUID tripId) {
-        String url = tripServiceUrl + "/trips/" + tripId + "/accept";
-        AcceptTripRequest request = new AcceptTripRequest(driverId);
-
-        try {
-            // Forward request to TripService - it handles all business logic and error
-            // cases
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.PUT,
-                    new HttpEntity<>(request),
-                    String.class);
-
-            return ResponseEntity
-                    .status(response.getStatusCode())
-                    .body(response.getBody());
-        } catch (Exception e) {
-            // Only catch network/communication errors
-            log.error("Error forwarding accept request to TripService", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Failed to communicate with TripService: " + e.getMessage());
+        // Trip already assigned or cancelled (seen on the event bus) - answer like TripService would
+        if (closedTripCache.isClosed(tripId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body("\"ALREADY_ASSIGNED\"");
         }
+        return tripServiceClient.acceptTrip(tripId, driverId);
     }
 
     @GetMapping("/ping")
@@ -0,0 +1,236 @@
+package se360.driver_service.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous RabbitMQ publishing with correlated publisher confirms.
+ *
+ * Every message holds a permit from a window of {@code max-in-flight} until
+ * the broker confirms it, so a stalled broker pushes back on callers instead
+ * of letting unconfirmed messages pile up in memory. A nack, a missing confirm
+ * after {@code confirm-timeout-ms} or a failed send is retried up to
+ * {@code max-retries} times with a short backoff; after that the returned
+ * future fails. Retries run on a separate thread, never on the AMQP
+ * connection thread that delivered the nack.
+ *
+ * Messages sent with {@link #publish} carry a random message id that stays
+ * the same across retries, so consumers can drop redeliveries.
+ *
+ * Metrics, tagged by exchange: {@code messaging.publish.confirm.latency},
+ * {@code messaging.publish.nacked} (each nack or timeout, retried or not),
+ * {@code messaging.publish.failed} (given up), {@code messaging.publish.rejected}
+ * (no room in the window) and the {@code messaging.publish.in-flight} gauge.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfirmingPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${messaging.publisher.max-in-flight:1024}")
+    private int maxInFlight;
+
+    @Value("${messaging.publisher.acquire-timeout-ms:1000}")
+    private long acquireTimeoutMs;
+
+    @Value("${messaging.publisher.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${messaging.publisher.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${messaging.publisher.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    private final Map<String, ExchangeMeters> meters = new ConcurrentHashMap<>();
+
+    private Semaphore window;
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    void start() {
+        this.window = new Semaphore(maxInFlight);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("rabbit-publish-retry").daemon(true).factory());
+        Gauge.builder("messaging.publish.in-flight", window, w -> maxInFlight - w.availablePermits())
+                .description("Messages sent and not yet confirmed by the broker")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        retryScheduler.shutdownNow();
+    }
+
+    /**
+     * Publish one message. Waits up to {@code acquire-timeout-ms} for room in
+     * the window.
+     *
+     * @return completes when the broker confirms the message, or fails once
+     *         it is rejected or out of retries
+     */
+    public CompletableFuture<Void> publish(String exchange, String routingKey, Object payload) {
+        Pending pending = new Pending(exchange, routingKey, payload, UUID.randomUUID().toString());
+        if (!acquire(acquireTimeoutMs)) {
+            return reject(pending);
+        }
+        send(pending, rabbitTemplate);
+        return pending.result;
+    }
+
+    /**
+     * Publish a batch of small messages on one channel, with their confirms
+     * pipelined. Meant for streams where the next message supersedes this one:
+     * it never waits for the window, messages that find it full are rejected
+     * rather than blocking the caller, and no message ids are assigned.
+     *
+     * @return completes when every message is confirmed, or fails if any of
+     *         them was rejected or ran out of retries
+     */
+    public CompletableFuture<Void> publishAll(String exchange, String routingKey, List<?> payloads) {
+        List<CompletableFuture<Void>> results = new ArrayList<>(payloads.size());
+        List<Pending> admitted = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            Pending pending = new Pending(exchange, routingKey, payload, null);
+            results.add(pending.result);
+            if (acquire(0)) {
+                admitted.add(pending);
+            } else {
+                reject(pending);
+            }
+        }
+
+        if (!admitted.isEmpty()) {
+            try {
+                rabbitTemplate.invoke((RabbitOperations ops) -> {
+                    admitted.forEach(pending -> send(pending, ops));
+                    return null;
+                });
+            } catch (AmqpException e) {
+                // Channel checkout failed before anything was sent
+                admitted.forEach(pending -> retryOrFail(pending, e.getMessage()));
+            }
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new));
+    }
+
+    private void send(Pending pending, RabbitOperations template) {
+        CorrelationData correlation = new CorrelationData();
+        pending.sentAt = System.nanoTime();
+        try {
+            template.convertAndSend(pending.exchange, pending.routingKey, pending.payload, message -> {
+                if (pending.messageId != null) {
+                    message.getMessageProperties().setMessageId(pending.messageId);
+                }
+                return message;
+            }, correlation);
+        } catch (AmqpException e) {
+            retryOrFail(pending, e.getMessage());
+            return;
+        }
+        correlation.getFuture()
+                .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((confirm, error) -> {
+                    if (error == null && confirm.isAck()) {
+                        metersFor(pending.exchange).confirmLatency
+                                .record(System.nanoTime() - pending.sentAt, TimeUnit.NANOSECONDS);
+                        window.release();
+                        pending.result.complete(null);
+                        return;
+                    }
+                    metersFor(pending.exchange).nacked.increment();
+                    retryOrFail(pending, error != null ? "no confirm within " + confirmTimeoutMs + " ms"
+                            : confirm.getReason());
+                });
+    }
+
+    // Keeps the message's permit across retries
+    private void retryOrFail(Pending pending, String reason) {
+        if (pending.attempt < maxRetries) {
+            pending.attempt++;
+            log.debug("Retrying publish to {}/{} (attempt {}): {}", pending.exchange, pending.routingKey,
+                    pending.attempt, reason);
+            retryScheduler.schedule(() -> send(pending, rabbitTemplate),
+                    retryBackoffMs * pending.attempt, TimeUnit.MILLISECONDS);
+            return;
+        }
+        window.release();
+        metersFor(pending.exchange).failed.increment();
+        pending.result.completeExceptionally(new AmqpException(
+                "Publish to " + pending.exchange + "/" + pending.routingKey + " not confirmed: " + reason));
+    }
+
+    private boolean acquire(long timeoutMs) {
+        try {
+            return window.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private CompletableFuture<Void> reject(Pending pending) {
+        metersFor(pending.exchange).rejected.increment();
+        pending.result.completeExceptionally(new AmqpException(
+                "Publish window full (" + maxInFlight + " unconfirmed messages)"));
+        return pending.result;
+    }
+
+    private ExchangeMeters metersFor(String exchange) {
+        return meters.computeIfAbsent(exchange, name -> new ExchangeMeters(
+                Timer.builder("messaging.publish.confirm.latency")
+                        .description("Time from send to broker ack")
+                        .tag("exchange", name)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry),
+                Counter.builder("messaging.publish.nacked").tag("exchange", name).register(meterRegistry),
+                Counter.builder("messaging.publish.failed").tag("exchange", name).register(meterRegistry),
+                Counter.builder("messaging.publish.rejected").tag("exchange", name).register(meterRegistry)));
+    }
+
+    private record ExchangeMeters(Timer confirmLatency, Counter nacked, Counter failed, Counter rejected) {
+    }
+
+    private static final class Pending {
+        final String exchange;
+        final String routingKey;
+        final Object payload;
+        final String messageId;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        int attempt;
+        volatile long sentAt;
+
+        Pending(String exchange, String routingKey, Object payload, String messageId) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.payload = payload;
+            this.messageId = messageId;
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package se360.driver_service.messaging;
 
+import java.util.List;
+
 import se360.driver_service.models.DriverLocationMessage;
 
 public interface LocationUpdatePublisher {
     void publishLocationUpdate(DriverLocationMessage message);
+
+    default void publishLocationUpdates(List<DriverLocationMessage> messages) {
+        messages.forEach(this::publishLocationUpdate);
+    }
 }
@@ -0,0 +1,97 @@
+package se360.driver_service.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which message ids a consumer has already handled
+ * ({@code msg:seen:<consumer>:<messageId>}, expiring after {@code ttl-minutes}).
+ *
+ * A consumer skips the ids that are already marked and marks the others only
+ * once their work has succeeded (for a DB write, after it committed). A
+ * process that dies in between leaves nothing behind, so the broker's
+ * redelivery is processed again instead of being lost; the price is a rare
+ * duplicate in that window, which consumers tolerate because they stay
+ * idempotent on their own. If Redis is unavailable every id counts as new:
+ * the store only saves the work.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageDeduplicator {
+
+    static final String KEY_PREFIX = "msg:seen:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${messaging.dedup.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    /**
+     * @return the ids this consumer has not handled yet; all of them if Redis
+     *         is unavailable
+     */
+    public Set<String> unseen(String consumer, List<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (String messageId : messageIds) {
+                    conn.exists(key(consumer, messageId));
+                }
+                return null;
+            });
+            Set<String> unseen = new HashSet<>(messageIds.size());
+            for (int i = 0; i < messageIds.size(); i++) {
+                if (!Boolean.TRUE.equals(results.get(i))) {
+                    unseen.add(messageIds.get(i));
+                }
+            }
+            return unseen;
+        } catch (Exception e) {
+            log.warn("Dedup store unavailable, processing {} messages for {} unchecked", messageIds.size(), consumer, e);
+            return new HashSet<>(messageIds);
+        }
+    }
+
+    /**
+     * Record ids whose work has succeeded, so their redeliveries are skipped.
+     */
+    public void markSeen(String consumer, Collection<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        try {
+            Expiration ttl = Expiration.from(ttlMinutes, TimeUnit.MINUTES);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (String messageId : messageIds) {
+                    conn.set(key(consumer, messageId), "1", ttl, SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Could not mark {} message ids as handled for {}; redeliveries will be processed again",
+                    messageIds.size(), consumer, e);
+        }
+    }
+
+    private static String key(String consumer, String messageId) {
+        return KEY_PREFIX + consumer + ":" + messageId;
+    }
+}
@@ -1,10 +1,13 @@
 package se360.driver_service.messaging;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -22,6 +25,8 @@ public class RabbitMQConfiguration {
     public static final String OFFERED_QUEUE = "trip.offered.queue";
     public static final String OFFERED_ROUTING = "trip.offered";
 
+    public static final String CANCELLED_ROUTING_KEY = "trip.cancelled";
+
     @Bean
     public TopicExchange tripExchange() {
 
@@ -59,6 +64,25 @@ public class RabbitMQConfiguration {
         return new Jackson2JsonMessageConverter();
     }
 
+    // Each trip.requested message runs a nearby search and starts a dispatch, so the
+    // consumers of this queue are sized on their own; other listeners keep the defaults
+    @Bean
+    public SimpleRabbitListenerContainerFactory tripRequestedContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${driver.messaging.requested.concurrency:2}") int concurrency,
+            @Value("${driver.messaging.requested.max-concurrency:8}") int maxConcurrency,
+            @Value("${driver.messaging.requested.prefetch:10}") int prefetch) {
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(prefetch);
+        return factory;
+    }
+
 
     @Bean
     public Queue tripOfferedQueue() {
@@ -72,4 +96,25 @@ public class RabbitMQConfiguration {
                 .with(OFFERED_ROUTING);
     }
 
+    // Every driver-service instance gets its own copy of assigned/cancelled events
+    // so whichever instance is dispatching the trip can stop sending offer waves
+    @Bean
+    public Queue tripClosedQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding bindTripClosedOnAssigned(Queue tripClosedQueue, TopicExchange tripExchange) {
+        return BindingBuilder.bind(tripClosedQueue)
+                .to(tripExchange)
+                .with(ASSIGNED_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding bindTripClosedOnCancelled(Queue tripClosedQueue, TopicExchange tripExchange) {
+        return BindingBuilder.bind(tripClosedQueue)
+                .to(tripExchange)
+                .with(CANCELLED_ROUTING_KEY);
+    }
+
 }
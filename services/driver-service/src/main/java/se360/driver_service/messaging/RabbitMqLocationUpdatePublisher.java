@@ -1,22 +1,28 @@
 package se360.driver_service.messaging;
 
-import org.springframework.amqp.AmqpException;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import se360.driver_service.models.DriverLocationMessage;
 
+/**
+ * Location updates go out through {@link ConfirmingPublisher}: a coalescer
+ * flush is one batch on one channel, and ticks that are rejected or never
+ * confirmed show up in the {@code messaging.publish.*} metrics instead of
+ * vanishing. Nothing waits on the confirms; the next tick supersedes a lost one.
+ */
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "messaging.location.mode", havingValue = "legacy", matchIfMissing = true)
 @RequiredArgsConstructor
 public class RabbitMqLocationUpdatePublisher implements LocationUpdatePublisher {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final ConfirmingPublisher confirmingPublisher;
 
     @Value("${messaging.location.exchange}")
     private String exchange;
@@ -26,12 +32,17 @@ public class RabbitMqLocationUpdatePublisher implements LocationUpdatePublisher
 
     @Override
     public void publishLocationUpdate(DriverLocationMessage message) {
-        try {
-            rabbitTemplate.convertAndSend(exchange, routingKey, message);
-            log.debug("Published driver.location.updated for {}", message.driverId());
-        } catch (AmqpException ex) {
-            log.error("Failed to publish location update for {}", message.driverId(), ex);
-        }
+        publishLocationUpdates(List.of(message));
+    }
+
+    @Override
+    public void publishLocationUpdates(List<DriverLocationMessage> messages) {
+        confirmingPublisher.publishAll(exchange, routingKey, messages)
+                .exceptionally(ex -> {
+                    log.warn("Some of {} location updates were not delivered: {}", messages.size(), ex.getMessage());
+                    return null;
+                });
+        log.debug("Published {} driver.location.updated events", messages.size());
     }
 
 }
@@ -0,0 +1,133 @@
+package se360.driver_service.messaging;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import se360.driver_service.models.DriverLocationMessage;
+import se360.driver_service.models.VehicleType;
+import se360.driver_service.services.DriverGeoShards;
+import se360.driver_service.websocket.DriverLocationFrame;
+
+/**
+ * Location fan-out for {@code messaging.location.mode=stream}.
+ *
+ * Ticks go to the non-durable {@code driver.location.stream} exchange as
+ * transient messages, so the broker never writes them to disk, with routing
+ * key {@code driver.location.<city>.<vehicleType>} ({@code other} outside the
+ * configured cities, {@code any} for drivers without a declared type).
+ * Consumers bind only the regions they serve, e.g. {@code driver.location.HCM.#}.
+ *
+ * The body is the 33-byte {@link DriverLocationFrame}; the driver id travels in
+ * the {@value #DRIVER_ID_HEADER} header. Publishing uses its own connection,
+ * so a burst of ticks never competes with trip events for channels, and skips
+ * publisher confirms: a lost tick is superseded by the next one.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "messaging.location.mode", havingValue = "stream")
+@RequiredArgsConstructor
+public class RabbitMqStreamLocationUpdatePublisher implements LocationUpdatePublisher {
+
+    public static final String CONTENT_TYPE = "application/x-driver-location-v1";
+    public static final String DRIVER_ID_HEADER = "driverId";
+
+    private final RabbitProperties rabbitProperties;
+    private final DriverGeoShards geoShards;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${messaging.location.stream.exchange:driver.location.stream}")
+    private String exchange;
+
+    @Value("${messaging.location.stream.routing-prefix:driver.location}")
+    private String routingPrefix;
+
+    @Value("${messaging.location.stream.channel-cache-size:8}")
+    private int channelCacheSize;
+
+    private CachingConnectionFactory connectionFactory;
+    private RabbitTemplate rabbitTemplate;
+    private Counter published;
+    private Counter failed;
+
+    @PostConstruct
+    void start() {
+        this.connectionFactory = new CachingConnectionFactory(rabbitProperties.determineHost(),
+                rabbitProperties.determinePort());
+        connectionFactory.setUsername(rabbitProperties.determineUsername());
+        connectionFactory.setPassword(rabbitProperties.determinePassword());
+        connectionFactory.setVirtualHost(rabbitProperties.determineVirtualHost());
+        connectionFactory.setChannelCacheSize(channelCacheSize);
+        connectionFactory.setConnectionNameStrategy(cf -> "driver-location-stream");
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+
+        this.published = Counter.builder("driver.location.stream.published")
+                .description("Location ticks handed to the broker")
+                .register(meterRegistry);
+        this.failed = Counter.builder("driver.location.stream.failed")
+                .description("Location ticks that could not be sent")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        connectionFactory.destroy();
+    }
+
+    @Override
+    public void publishLocationUpdate(DriverLocationMessage message) {
+        publishLocationUpdates(List.of(message));
+    }
+
+    @Override
+    public void publishLocationUpdates(List<DriverLocationMessage> messages) {
+        try {
+            // One HMGET per batch; types are not cached since a driver can switch vehicles via another instance
+            Map<String, VehicleType> vehicleTypes = geoShards.vehicleTypesOf(
+                    messages.stream().map(DriverLocationMessage::driverId).distinct().toList());
+            rabbitTemplate.invoke((RabbitOperations ops) -> {
+                for (DriverLocationMessage message : messages) {
+                    ops.send(exchange, routingKey(message, vehicleTypes.get(message.driverId())),
+                            toMessage(message));
+                }
+                return null;
+            });
+            published.increment(messages.size());
+        } catch (AmqpException e) {
+            failed.increment(messages.size());
+            log.warn("Failed to stream {} location updates: {}", messages.size(), e.getMessage());
+        }
+    }
+
+    String routingKey(DriverLocationMessage message, VehicleType type) {
+        String city = geoShards.cityOf(message.lat(), message.lng());
+        return routingPrefix + '.' + (city != null ? city : "other") + '.' + (type != null ? type.name() : "any");
+    }
+
+    static Message toMessage(DriverLocationMessage message) {
+        byte[] frame = DriverLocationFrame.encode(message.lat(), message.lng(), message.heading(), message.speed(),
+                message.timestamp()).array();
+        return MessageBuilder.withBody(frame)
+                .setContentType(CONTENT_TYPE)
+                .setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT)
+                .setHeader(DRIVER_ID_HEADER, message.driverId())
+                .build();
+    }
+}
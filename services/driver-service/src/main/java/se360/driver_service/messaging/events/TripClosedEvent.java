@@ -0,0 +1,17 @@
+package se360.driver_service.messaging.events;
+
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Any trip lifecycle event that ends matching (trip.assigned, trip.cancelled).
+ * Only the trip id is read.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TripClosedEvent {
+    private UUID tripId;
+}
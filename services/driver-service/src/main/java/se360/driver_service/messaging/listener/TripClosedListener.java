@@ -0,0 +1,22 @@
+package se360.driver_service.messaging.listener;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import se360.driver_service.messaging.events.TripClosedEvent;
+import se360.driver_service.services.ClosedTripCache;
+import se360.driver_service.services.TripDispatcher;
+
+@Component
+@RequiredArgsConstructor
+public class TripClosedListener {
+
+    private final TripDispatcher tripDispatcher;
+    private final ClosedTripCache closedTripCache;
+
+    @RabbitListener(queues = "#{tripClosedQueue.name}")
+    public void handleTripClosed(TripClosedEvent event) {
+        closedTripCache.markClosed(event.getTripId());
+        tripDispatcher.close(event.getTripId());
+    }
+}
@@ -1,27 +1,72 @@
 package se360.driver_service.messaging.listener;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
+import se360.driver_service.messaging.MessageDeduplicator;
 import se360.driver_service.messaging.RabbitMQConfiguration;
-import se360.driver_service.messaging.events.TripOfferedEvent;
 import se360.driver_service.messaging.events.TripRequestedEvent;
 
-import se360.driver_service.messaging.publisher.TripEventPublisher;
+import se360.driver_service.models.VehicleType;
 import se360.driver_service.services.DriverService;
+import se360.driver_service.services.ExpandingDriverSearch;
+import se360.driver_service.services.TripDispatcher;
 
 import java.util.List;
-import java.util.UUID;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class TripRequestedListener {
 
+    private static final String CONSUMER = "driver-service.trip-requested";
+
     private final DriverService driverService;
-    private final TripEventPublisher eventPublisher;
+    private final ExpandingDriverSearch driverSearch;
+    private final TripDispatcher tripDispatcher;
+    private final MessageDeduplicator deduplicator;
+    private final MeterRegistry meterRegistry;
+
+    private Counter consumed;
+    private Counter duplicates;
+
+    @PostConstruct
+    void init() {
+        this.consumed = Counter.builder("messaging.consumed")
+                .description("Messages handled by the listener")
+                .tag("queue", RabbitMQConfiguration.REQUESTED_QUEUE)
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("messaging.duplicates")
+                .description("Redelivered messages skipped by the dedup store")
+                .tag("queue", RabbitMQConfiguration.REQUESTED_QUEUE)
+                .register(meterRegistry);
+    }
+
+    @RabbitListener(queues = RabbitMQConfiguration.REQUESTED_QUEUE, containerFactory = "tripRequestedContainerFactory")
+    public void handleTripRequested(TripRequestedEvent event,
+                                    @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId) {
+        consumed.increment();
+
+        // A redelivery of a trip already dispatched would send every offer again
+        List<String> messageIds = messageId != null ? List.of(messageId) : List.of();
+        if (messageId != null && deduplicator.unseen(CONSUMER, messageIds).isEmpty()) {
+            duplicates.increment();
+            log.info("Skipping redelivered trip.requested {} for trip {}", messageId, event.getTripId());
+            return;
+        }
+
+        dispatch(event);
+        // Only after the offers went out; a crash before this line means the trip is dispatched again
+        deduplicator.markSeen(CONSUMER, messageIds);
+    }
 
-    @RabbitListener(queues = RabbitMQConfiguration.REQUESTED_QUEUE)
-    public void handleTripRequested(TripRequestedEvent event) {
+    private void dispatch(TripRequestedEvent event) {
 
         System.out.println("\n=== DRIVER SERVICE RECEIVED TRIP REQUESTED ===");
         System.out.println("TripId      : " + event.getTripId());
@@ -33,28 +78,21 @@ public class TripRequestedListener {
 
         driverService.cacheTripPassenger(event.getTripId(), event.getPassengerId());
 
-        List<String> drivers = driverService.findNearbyDrivers(
+        ExpandingDriverSearch.Result candidates = driverSearch.search(
                 event.getPickupLat(),
                 event.getPickupLng(),
-                3.0
+                VehicleType.parse(event.getVehicleType())
         );
 
-        if (drivers.isEmpty()) {
-            System.out.println("❌ No available drivers within 3km");
+        if (candidates.drivers().isEmpty()) {
+            log.warn("No available drivers for trip {} within {} km", event.getTripId(), candidates.radiusKm());
             return;
         }
 
-        System.out.println("✅ Candidate drivers: " + drivers);
-
-        for (String driverId: drivers) {
-            TripOfferedEvent offer = TripOfferedEvent.builder()
-                    .tripId(event.getTripId())
-                    .driverId(UUID.fromString(driverId))
-                    .pickupLat(event.getPickupLat())
-                    .pickupLng(event.getPickupLng())
-                    .build();
+        log.info("Found {} candidate drivers for trip {} within {} km", candidates.drivers().size(),
+                event.getTripId(), candidates.radiusKm());
 
-            eventPublisher.publishTripOffered(offer);
-        }
+        // Offers go out to the best-ranked few, in waves, instead of everyone in range
+        tripDispatcher.dispatch(event, candidates.radiusKm(), candidates.drivers());
     }
 }
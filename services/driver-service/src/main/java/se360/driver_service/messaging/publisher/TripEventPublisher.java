@@ -1,31 +1,43 @@
 package se360.driver_service.messaging.publisher;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import se360.driver_service.messaging.ConfirmingPublisher;
 import se360.driver_service.messaging.RabbitMQConfiguration;
 import se360.driver_service.messaging.events.TripAssignedEvent;
 import se360.driver_service.messaging.events.TripOfferedEvent;
 
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class TripEventPublisher {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final ConfirmingPublisher confirmingPublisher;
 
-    public void publishTripAssigned(TripAssignedEvent event) {
-        rabbitTemplate.convertAndSend(
+    public CompletableFuture<Void> publishTripAssigned(TripAssignedEvent event) {
+        return logFailure(confirmingPublisher.publish(
                 RabbitMQConfiguration.EXCHANGE,
                 RabbitMQConfiguration.ASSIGNED_ROUTING_KEY,
                 event
-        );
+        ), "trip.assigned", event.getTripId());
     }
-    public void publishTripOffered(TripOfferedEvent event) {
-        rabbitTemplate.convertAndSend(
+    public CompletableFuture<Void> publishTripOffered(TripOfferedEvent event) {
+        return logFailure(confirmingPublisher.publish(
                 RabbitMQConfiguration.EXCHANGE,
                 "trip.offered",     // routing key mới
                 event
-        );
+        ), "trip.offered", event.getTripId());
+    }
+
+    private static CompletableFuture<Void> logFailure(CompletableFuture<Void> confirmed, String type, Object tripId) {
+        return confirmed.whenComplete((ok, ex) -> {
+            if (ex != null) {
+                log.warn("{} for trip {} was not delivered: {}", type, tripId, ex.getMessage());
+            }
+        });
     }
 }
@@ -0,0 +1,12 @@
+package se360.driver_service.models;
+
+/**
+ * An online driver returned by a nearby search, with distance from the search
+ * centre and current position.
+ */
+public record NearbyDriver(
+        String driverId,
+        double distanceKm,
+        double lat,
+        double lng) {
+}
@@ -0,0 +1,28 @@
+package se360.driver_service.models;
+
+/**
+ * Mirrors trip-service's VehicleType; trip events carry it as a string.
+ */
+public enum VehicleType {
+    BIKE,
+    BIKE_ECONOMY,
+    CAR_4_SEAT,
+    CAR_7_SEAT,
+    CAR_ECONOMY,
+    CAR_ELECTRIC,
+    CAR_PREMIUM;
+
+    /**
+     * @return the matching type, or null for a null or unknown value
+     */
+    public static VehicleType parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package se360.driver_service.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import se360.driver_service.models.NearbyDriver;
+import se360.driver_service.utils.GeoUtils;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Scores nearby drivers for a pickup so offers go to the best few first.
+ *
+ * Each candidate gets a weighted sum of four scores in [0, 1]:
+ * <ul>
+ * <li>distance - closer is better, relative to the search radius</li>
+ * <li>heading - driving towards the pickup is better than driving away</li>
+ * <li>freshness - a recent GPS tick means the position can be trusted</li>
+ * <li>rating - the driver's average rating out of 5, if known</li>
+ * </ul>
+ * Heading, last update and rating come from {@code driver:meta:<id>}, read for
+ * all candidates in one pipelined round-trip. A field that is missing or does
+ * not parse gets the neutral score, so one malformed entry never fails a dispatch.
+ */
+@Component
+@RequiredArgsConstructor
+public class CandidateRanker {
+
+    public record RankedCandidate(String driverId, double distanceKm, double score) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${driver.matching.weight.distance:0.5}")
+    private double distanceWeight;
+
+    @Value("${driver.matching.weight.heading:0.15}")
+    private double headingWeight;
+
+    @Value("${driver.matching.weight.freshness:0.2}")
+    private double freshnessWeight;
+
+    @Value("${driver.matching.weight.rating:0.15}")
+    private double ratingWeight;
+
+    @Value("${driver.matching.stale-after-ms:30000}")
+    private long staleAfterMs;
+
+    /**
+     * @return candidates ordered by descending score
+     */
+    public List<RankedCandidate> rank(double pickupLat, double pickupLng, double radiusKm,
+            List<NearbyDriver> candidates) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> metas = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (NearbyDriver candidate : candidates) {
+                conn.hMGet(DriverService.DRIVER_META_PREFIX + candidate.driverId(), "heading", "updatedAt", "rating");
+            }
+            return null;
+        });
+
+        long now = System.currentTimeMillis();
+        List<RankedCandidate> ranked = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            NearbyDriver candidate = candidates.get(i);
+            List<?> meta = (List<?>) metas.get(i);
+
+            double score = distanceWeight * distanceScore(candidate.distanceKm(), radiusKm)
+                    + headingWeight * headingScore(candidate, pickupLat, pickupLng, (String) meta.get(0))
+                    + freshnessWeight * freshnessScore((String) meta.get(1), now)
+                    + ratingWeight * ratingScore((String) meta.get(2));
+            ranked.add(new RankedCandidate(candidate.driverId(), candidate.distanceKm(), score));
+        }
+
+        ranked.sort(Comparator.comparingDouble(RankedCandidate::score).reversed());
+        return ranked;
+    }
+
+    private static double distanceScore(double distanceKm, double radiusKm) {
+        return radiusKm <= 0 ? 1 : 1 - Math.min(distanceKm / radiusKm, 1);
+    }
+
+    private static double headingScore(NearbyDriver candidate, double pickupLat, double pickupLng, String heading) {
+        // Heading is meaningless when the driver is already at the pickup
+        if (candidate.distanceKm() < 0.05) {
+            return 1;
+        }
+        double degrees = parseFinite(heading);
+        if (Double.isNaN(degrees)) {
+            return 0.5;
+        }
+        double bearing = GeoUtils.bearingDegrees(candidate.lat(), candidate.lng(), pickupLat, pickupLng);
+        double diff = Math.toRadians(bearing - degrees);
+        return (1 + Math.cos(diff)) / 2;
+    }
+
+    private double freshnessScore(String updatedAt, long now) {
+        Instant at = parseInstant(updatedAt);
+        if (at == null) {
+            return 0;
+        }
+        long ageMs = now - at.toEpochMilli();
+        return Math.max(0, 1 - (double) Math.max(ageMs, 0) / staleAfterMs);
+    }
+
+    private static double ratingScore(String rating) {
+        double stars = parseFinite(rating);
+        return Double.isNaN(stars) ? 0.5 : Math.max(0, Math.min(stars / 5, 1));
+    }
+
+    /**
+     * @return the value, or NaN if it is missing, malformed or not finite
+     */
+    private static double parseFinite(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            double parsed = Double.parseDouble(value);
+            return Double.isFinite(parsed) ? parsed : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
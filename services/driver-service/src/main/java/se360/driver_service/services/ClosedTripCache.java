@@ -0,0 +1,49 @@
+package se360.driver_service.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process set of trips that were assigned or cancelled, fed by the
+ * trip.assigned / trip.cancelled fan-out. Lets losing accepts be answered
+ * without any call to TripService. Entries expire after {@code ttl-ms}; a
+ * miss just means the accept is forwarded as usual.
+ */
+@Component
+public class ClosedTripCache {
+
+    @Value("${driver.closed-trips.ttl-ms:600000}")
+    private long ttlMs;
+
+    @Value("${driver.closed-trips.max-entries:100000}")
+    private int maxEntries;
+
+    // tripId -> expiry (epoch millis)
+    private final Map<UUID, Long> closed = new ConcurrentHashMap<>();
+
+    public void markClosed(UUID tripId) {
+        long now = System.currentTimeMillis();
+        if (closed.size() >= maxEntries) {
+            closed.values().removeIf(expiresAt -> expiresAt <= now);
+        }
+        if (closed.size() < maxEntries) {
+            closed.put(tripId, now + ttlMs);
+        }
+    }
+
+    public boolean isClosed(UUID tripId) {
+        Long expiresAt = closed.get(tripId);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            closed.remove(tripId, expiresAt);
+            return false;
+        }
+        return true;
+    }
+}
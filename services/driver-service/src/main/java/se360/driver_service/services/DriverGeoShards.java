@@ -0,0 +1,239 @@
+package se360.driver_service.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import se360.driver_service.models.VehicleType;
+import se360.driver_service.utils.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves which Redis GEO key (shard) a driver lives in.
+ *
+ * Drivers are partitioned by declared vehicle type, and optionally by city
+ * when {@code driver.location.shard.cities} is set:
+ *
+ * <pre>
+ * driver:locations                     no vehicle type, outside every city (legacy key)
+ * driver:locations:CAR_4_SEAT          typed, outside every city
+ * driver:locations:HCM                 no vehicle type, inside HCM
+ * driver:locations:HCM:CAR_4_SEAT      typed, inside HCM
+ * </pre>
+ *
+ * A search only touches the shards of the requested type plus the untyped
+ * shards (drivers without a declared type still match any request), restricted
+ * to the cities the search circle overlaps.
+ *
+ * Vehicle types and the shard a driver currently sits in live in Redis
+ * ({@code driver:vehicle}, {@code driver:shard}) rather than in memory: a
+ * driver's socket and its online/offline calls can land on different instances.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverGeoShards {
+
+    private record City(String name, double minLat, double minLng, double maxLat, double maxLng) {
+
+        boolean contains(double lat, double lng) {
+            return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+        }
+
+        boolean overlaps(double minLat, double minLng, double maxLat, double maxLng) {
+            return minLat <= this.maxLat && maxLat >= this.minLat && minLng <= this.maxLng && maxLng >= this.minLng;
+        }
+    }
+
+    /**
+     * @param vehicleTypes  declared type per driver, absent when none was declared
+     * @param currentShards shard each driver was last written to, absent when unknown
+     * @param statuses      status from {@code driver:status}, absent when never set
+     */
+    public record Placements(Map<String, VehicleType> vehicleTypes, Map<String, String> currentShards,
+                             Map<String, String> statuses) {
+
+        public boolean isOnline(String driverId) {
+            return "ONLINE".equals(statuses.get(driverId));
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+
+    // NAME:minLat,minLng,maxLat,maxLng;NAME:...
+    @Value("${driver.location.shard.cities:}")
+    private String citiesSpec;
+
+    private List<City> cities = List.of();
+
+    @PostConstruct
+    void parseCities() {
+        if (citiesSpec == null || citiesSpec.isBlank()) {
+            return;
+        }
+        List<City> parsed = new ArrayList<>();
+        for (String entry : citiesSpec.split(";")) {
+            String[] nameAndBox = entry.trim().split(":");
+            String[] box = nameAndBox[1].split(",");
+            parsed.add(new City(nameAndBox[0].trim(),
+                    Double.parseDouble(box[0].trim()), Double.parseDouble(box[1].trim()),
+                    Double.parseDouble(box[2].trim()), Double.parseDouble(box[3].trim())));
+        }
+        this.cities = List.copyOf(parsed);
+        log.info("Driver geo shards partitioned by cities: {}", cities.stream().map(City::name).toList());
+    }
+
+    /**
+     * Declared vehicle type from {@code driver:vehicle}, null when none was declared.
+     */
+    public VehicleType vehicleTypeOf(String driverId) {
+        Object stored = redisTemplate.opsForHash().get(DriverService.DRIVER_VEHICLE_KEY, driverId);
+        return stored != null ? VehicleType.parse(stored.toString()) : null;
+    }
+
+    /**
+     * Declared vehicle types of a batch of drivers with a single HMGET. Drivers
+     * without a declared type are absent from the result.
+     *
+     * Never cached locally: a driver can switch vehicles through any instance
+     * while its location stream stays on another one.
+     */
+    public Map<String, VehicleType> vehicleTypesOf(Collection<String> driverIds) {
+        List<String> ids = List.copyOf(driverIds);
+        HashOperations<String, String, String> hashOps = redisTemplate.opsForHash();
+        List<String> stored = hashOps.multiGet(DriverService.DRIVER_VEHICLE_KEY, ids);
+        return toTypes(ids, stored);
+    }
+
+    /**
+     * Declared vehicle types and the shards the drivers were last written to
+     * (by any instance), read in one pipelined round-trip.
+     */
+    public Placements placementsOf(Collection<String> driverIds) {
+        List<String> ids = List.copyOf(driverIds);
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.hMGet(DriverService.DRIVER_VEHICLE_KEY, ids.toArray(String[]::new));
+            conn.hMGet(DriverService.DRIVER_SHARD_KEY, ids.toArray(String[]::new));
+            conn.hMGet(DriverService.DRIVER_STATUS_KEY, ids.toArray(String[]::new));
+            return null;
+        });
+        @SuppressWarnings("unchecked")
+        List<String> types = (List<String>) replies.get(0);
+        @SuppressWarnings("unchecked")
+        List<String> shards = (List<String>) replies.get(1);
+        @SuppressWarnings("unchecked")
+        List<String> statusReplies = (List<String>) replies.get(2);
+
+        Map<String, String> currentShards = new HashMap<>();
+        Map<String, String> statuses = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (shards.get(i) != null) {
+                currentShards.put(ids.get(i), shards.get(i));
+            }
+            if (statusReplies.get(i) != null) {
+                statuses.put(ids.get(i), statusReplies.get(i));
+            }
+        }
+        return new Placements(toTypes(ids, types), currentShards, statuses);
+    }
+
+    /**
+     * Shard a driver of the given type (null if undeclared) at the given position belongs to.
+     */
+    public String keyFor(VehicleType vehicleType, double lat, double lng) {
+        return key(cityOf(lat, lng), vehicleType);
+    }
+
+    /**
+     * Name of the configured city containing the point, null if none does.
+     */
+    public String cityOf(double lat, double lng) {
+        for (City c : cities) {
+            if (c.contains(lat, lng)) {
+                return c.name();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Shards that can hold drivers eligible for a request of the given type
+     * (null for any type) near the given point.
+     */
+    public List<String> keysFor(VehicleType requested, double lat, double lng, double radiusKm) {
+        double dLat = radiusKm / GeoUtils.KM_PER_DEGREE;
+        double dLng = radiusKm / (GeoUtils.KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+
+        List<String> cityNames = new ArrayList<>();
+        cityNames.add(null);
+        for (City c : cities) {
+            if (c.overlaps(lat - dLat, lng - dLng, lat + dLat, lng + dLng)) {
+                cityNames.add(c.name());
+            }
+        }
+
+        List<String> keys = new ArrayList<>();
+        for (String city : cityNames) {
+            keys.add(key(city, null));
+            if (requested != null) {
+                keys.add(key(city, requested));
+            } else {
+                for (VehicleType type : VehicleType.values()) {
+                    keys.add(key(city, type));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Every shard key in use, e.g. to remove a driver or rebuild an index.
+     */
+    public List<String> allKeys() {
+        List<String> cityNames = new ArrayList<>();
+        cityNames.add(null);
+        cities.forEach(c -> cityNames.add(c.name()));
+
+        List<String> keys = new ArrayList<>();
+        for (String city : cityNames) {
+            keys.add(key(city, null));
+            for (VehicleType type : VehicleType.values()) {
+                keys.add(key(city, type));
+            }
+        }
+        return keys;
+    }
+
+    private static Map<String, VehicleType> toTypes(List<String> ids, List<String> stored) {
+        Map<String, VehicleType> types = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            VehicleType type = VehicleType.parse(stored.get(i));
+            if (type != null) {
+                types.put(ids.get(i), type);
+            }
+        }
+        return types;
+    }
+
+    private static String key(String city, VehicleType type) {
+        StringBuilder key = new StringBuilder(DriverService.DRIVER_LOCATION_KEY);
+        if (city != null) {
+            key.append(':').append(city);
+        }
+        if (type != null) {
+            key.append(':').append(type.name());
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,222 @@
+package se360.driver_service.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import se360.driver_service.models.DriverLocationMessage;
+import se360.driver_service.utils.GeoCells;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers streaming GPS ticks and writes them to Redis in pipelined batches.
+ *
+ * A single flusher thread drains the queue whenever either {@code max-size}
+ * ticks are buffered or {@code flush-interval-ms} has elapsed since the first
+ * tick of the batch, reads the drivers' vehicle types, current shards and
+ * statuses with one pipelined round of HMGETs, then issues one multi-member
+ * GEOADD per geo shard plus one HSET per driver in a single pipeline. The same
+ * pipeline adds the ONLINE drivers to the surge supply HyperLogLog of their
+ * cell for the current minute; a busy or offline driver may keep streaming but is not supply.
+ *
+ * The queue is bounded: when Redis is slow the flusher falls behind, the queue
+ * fills up and {@link #enqueue} blocks the caller for at most
+ * {@code enqueue-timeout-ms} before dropping the tick. Dropping is safe because
+ * the next tick from the same driver supersedes it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverLocationBatchWriter {
+
+    static final String SURGE_SUPPLY_PREFIX = "surge:supply:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final DriverGeoShards geoShards;
+
+    @Value("${driver.location.batch.max-size:256}")
+    private int maxBatchSize;
+
+    @Value("${driver.location.batch.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${driver.location.batch.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${driver.location.batch.enqueue-timeout-ms:50}")
+    private long enqueueTimeoutMs;
+
+    @Value("${surge.supply.enabled:true}")
+    private boolean surgeSupplyEnabled;
+
+    @Value("${surge.cell-size-deg:0.02}")
+    private double surgeCellSizeDeg;
+
+    @Value("${surge.ttl-minutes:15}")
+    private long surgeTtlMinutes;
+
+    private BlockingQueue<DriverLocationMessage> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.running = true;
+        this.flusher = Thread.ofPlatform()
+                .name("driver-location-flusher")
+                .daemon(true)
+                .start(this::runFlushLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Flush whatever is left so a graceful shutdown does not lose the last ticks
+        List<DriverLocationMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+    /**
+     * Queue a tick for the next batch.
+     *
+     * @return false if the tick was dropped because the buffer stayed full
+     */
+    public boolean enqueue(DriverLocationMessage msg) {
+        try {
+            if (queue.offer(msg, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("Location buffer full, dropping tick for driver {}", msg.driverId());
+        return false;
+    }
+
+    private void runFlushLoop() {
+        List<DriverLocationMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                DriverLocationMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    DriverLocationMessage next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to flush {} location ticks to Redis", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<DriverLocationMessage> batch) {
+        // Several ticks from the same driver can land in one window - only the last one matters
+        Map<String, DriverLocationMessage> latest = new LinkedHashMap<>();
+        for (DriverLocationMessage msg : batch) {
+            latest.put(msg.driverId(), msg);
+        }
+
+        // Vehicle types, current shards and statuses come from Redis in one round-trip, so a
+        // change made through another instance is picked up on the next flush
+        DriverGeoShards.Placements placements = geoShards.placementsOf(latest.keySet());
+
+        // One GEOADD per shard; drivers that changed shard are removed from the old one
+        Map<String, Map<String, Point>> positionsByShard = new HashMap<>();
+        Map<String, String> shardByDriver = new HashMap<>();
+        Map<String, String> movedFrom = new HashMap<>();
+        latest.forEach((driverId, msg) -> {
+            String shardKey = geoShards.keyFor(placements.vehicleTypes().get(driverId), msg.lat(), msg.lng());
+            String previousShard = placements.currentShards().get(driverId);
+            if (previousShard != null && !previousShard.equals(shardKey)) {
+                movedFrom.put(driverId, previousShard);
+            }
+            shardByDriver.put(driverId, shardKey);
+            positionsByShard.computeIfAbsent(shardKey, k -> new HashMap<>())
+                    .put(driverId, new Point(msg.lng(), msg.lat()));
+        });
+
+        // Distinct available drivers per surge cell, read by trip-service as supply
+        Map<String, List<String>> driversByCell = new HashMap<>();
+        if (surgeSupplyEnabled) {
+            long epochMinute = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+            latest.forEach((driverId, msg) -> {
+                if (!placements.isOnline(driverId)) {
+                    return;
+                }
+                String cell = GeoCells.cellOf(msg.lat(), msg.lng(), surgeCellSizeDeg);
+                driversByCell.computeIfAbsent(SURGE_SUPPLY_PREFIX + cell + ":" + epochMinute, k -> new ArrayList<>())
+                        .add(driverId);
+            });
+        }
+        long surgeTtlSeconds = TimeUnit.MINUTES.toSeconds(surgeTtlMinutes);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            movedFrom.forEach((driverId, previousShard) -> conn.zRem(previousShard, driverId));
+            positionsByShard.forEach(conn::geoAdd);
+            conn.hMSet(DriverService.DRIVER_SHARD_KEY, shardByDriver);
+
+            for (DriverLocationMessage msg : latest.values()) {
+                Map<String, String> meta = new HashMap<>(4);
+                if (msg.heading() != null) {
+                    meta.put("heading", msg.heading().toString());
+                }
+                if (msg.speed() != null) {
+                    meta.put("speed", msg.speed().toString());
+                }
+                meta.put("updatedAt", msg.timestamp() != null ? msg.timestamp().toString() : Instant.now().toString());
+                conn.hMSet(DriverService.DRIVER_META_PREFIX + msg.driverId(), meta);
+            }
+
+            driversByCell.forEach((key, driverIds) -> {
+                conn.pfAdd(key, driverIds.toArray(String[]::new));
+                conn.expire(key, surgeTtlSeconds);
+            });
+            return null;
+        });
+
+        log.debug("Flushed {} ticks ({} drivers) to Redis", batch.size(), latest.size());
+    }
+}
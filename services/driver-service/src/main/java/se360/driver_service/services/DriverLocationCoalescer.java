@@ -0,0 +1,149 @@
+package se360.driver_service.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se360.driver_service.models.DriverLocationMessage;
+import se360.driver_service.utils.GeoUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last-write-wins buffer in front of {@link DriverService#handleStreamingLocations}.
+ *
+ * Between two flushes only the newest tick (by {@code timestamp}) per driver
+ * is kept. Ticks older than or equal to the last accepted one for that driver
+ * are dropped, so bursts of replayed frames from drivers on bad networks never
+ * reach Redis or RabbitMQ.
+ *
+ * Ticks with a position Redis cannot store are rejected here too: one of them
+ * in a multi-member GEOADD would fail the write for every driver in its shard.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverLocationCoalescer {
+
+    private final DriverService driverService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${driver.location.coalesce.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    // Newest tick per driver waiting for the next flush
+    private final Map<String, DriverLocationMessage> pending = new ConcurrentHashMap<>();
+
+    // Timestamp of the newest tick accepted per connected driver, used to reject out-of-order frames.
+    // Released when the driver goes offline or their socket closes, so it only holds connected drivers
+    private final Map<String, Instant> lastAccepted = new ConcurrentHashMap<>();
+
+    private Counter coalescedCounter;
+    private Counter droppedCounter;
+    private Counter invalidCounter;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        this.coalescedCounter = Counter.builder("driver.location.coalesced")
+                .description("Ticks replaced by a newer tick from the same driver before flush")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("driver.location.dropped")
+                .description("Out-of-order or duplicate ticks rejected on arrival")
+                .register(meterRegistry);
+        this.invalidCounter = Counter.builder("driver.location.invalid")
+                .description("Ticks rejected for a non-finite or out-of-range position")
+                .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("driver-location-coalescer").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    /**
+     * Offer a tick. Returns false if it was dropped as out-of-order or for an
+     * invalid position.
+     */
+    public boolean submit(DriverLocationMessage msg) {
+        if (!GeoUtils.isValidPosition(msg.lat(), msg.lng())) {
+            invalidCounter.increment();
+            log.debug("Dropped tick for driver {} with invalid position {},{}", msg.driverId(), msg.lat(), msg.lng());
+            return false;
+        }
+        DriverLocationMessage stamped = msg.timestamp() != null ? msg
+                : new DriverLocationMessage(msg.driverId(), msg.lat(), msg.lng(),
+                        msg.heading(), msg.speed(), Instant.now());
+
+        boolean[] accepted = { false };
+        lastAccepted.compute(stamped.driverId(), (driverId, previous) -> {
+            if (previous != null && !stamped.timestamp().isAfter(previous)) {
+                return previous;
+            }
+            accepted[0] = true;
+            if (pending.put(driverId, stamped) != null) {
+                coalescedCounter.increment();
+            }
+            return stamped.timestamp();
+        });
+
+        if (!accepted[0]) {
+            droppedCounter.increment();
+            log.debug("Dropped out-of-order tick for driver {} at {}", stamped.driverId(), stamped.timestamp());
+        }
+        return accepted[0];
+    }
+
+    /**
+     * Forget ordering state for a driver, e.g. when they go offline.
+     */
+    public void forget(String driverId) {
+        lastAccepted.remove(driverId);
+        pending.remove(driverId);
+    }
+
+    /**
+     * Release ordering state when a driver's socket closes without going
+     * offline. A tick still waiting for the flush is kept.
+     */
+    public void disconnected(String driverId) {
+        lastAccepted.remove(driverId);
+    }
+
+    void flush() {
+        List<DriverLocationMessage> batch = new ArrayList<>(pending.size());
+        for (String driverId : pending.keySet()) {
+            DriverLocationMessage msg = pending.remove(driverId);
+            if (msg != null) {
+                batch.add(msg);
+            }
+        }
+        if (!batch.isEmpty()) {
+            driverService.handleStreamingLocations(batch);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush coalesced location ticks", e);
+        }
+    }
+}
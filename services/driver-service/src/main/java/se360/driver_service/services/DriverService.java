@@ -5,18 +5,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import se360.driver_service.messaging.LocationUpdatePublisher;
 import se360.driver_service.models.DriverLocationMessage;
+import se360.driver_service.models.NearbyDriver;
+import se360.driver_service.models.VehicleType;
 
-import org.springframework.data.geo.*;
-import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.StringRedisConnection;
 import org.springframework.data.redis.core.GeoOperations;
-import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 
 import java.time.Duration;
-import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,51 +27,100 @@ public class DriverService {
 
     private static final Logger log = LoggerFactory.getLogger(DriverService.class);
 
-    private static final String DRIVER_LOCATION_KEY = "driver:locations";
-    private static final String DRIVER_STATUS_KEY = "driver:status";
-    private static final String DRIVER_META_PREFIX = "driver:meta:";
+    static final String DRIVER_LOCATION_KEY = "driver:locations";
+    static final String DRIVER_STATUS_KEY = "driver:status";
+    static final String DRIVER_META_PREFIX = "driver:meta:";
+    static final String DRIVER_VEHICLE_KEY = "driver:vehicle";
+    static final String DRIVER_SHARD_KEY = "driver:shard";
 
     private final StringRedisTemplate redisTemplate;
     private final LocationUpdatePublisher locationUpdatePublisher;
+    private final DriverLocationBatchWriter locationBatchWriter;
+    private final DriverSpatialIndex spatialIndex;
+    private final NearbyDriverQuery nearbyDriverQuery;
+    private final DriverGeoShards geoShards;
     private GeoOperations<String, String> geoOps;
-    private HashOperations<String, Object, Object> hashOps;
 
     @PostConstruct
     void init() {
         this.geoOps = redisTemplate.opsForGeo();
-        this.hashOps = redisTemplate.opsForHash();
     }
 
-    public void setDriverOnline(String driverId) {
-        log.debug("setDriverOnline called with driverId={}", driverId);
+    public void setDriverOnline(String driverId, VehicleType vehicleType) {
+        log.debug("setDriverOnline called with driverId={}, vehicleType={}", driverId, vehicleType);
+        VehicleType previousType = geoShards.vehicleTypeOf(driverId);
         redisTemplate.opsForHash().put(DRIVER_STATUS_KEY, driverId, "ONLINE");
+
+        VehicleType effectiveType = previousType;
+        if (vehicleType != null) {
+            redisTemplate.opsForHash().put(DRIVER_VEHICLE_KEY, driverId, vehicleType.name());
+            if (vehicleType != previousType) {
+                // Switching vehicles moves the driver to another shard on the next location update
+                removeFromAllShards(driverId);
+            }
+            effectiveType = vehicleType;
+        }
+        spatialIndex.markOnline(driverId, effectiveType);
     }
 
     public void setDriverOffline(String driverId) {
         log.debug("setDriverOffline called with driverId={}", driverId);
         redisTemplate.opsForHash().put(DRIVER_STATUS_KEY, driverId, "OFFLINE");
-        geoOps.remove(DRIVER_LOCATION_KEY, driverId);
+        removeFromAllShards(driverId);
+        spatialIndex.remove(driverId);
     }
 
     public void updateDriverLocation(String driverId, double latitude, double longitude) {
         log.debug("updateDriverLocation called with driverId={}, latitude={}, longitude={}", driverId, latitude,
                 longitude);
-        geoOps.add(DRIVER_LOCATION_KEY, new Point(longitude, latitude), driverId);
+        DriverGeoShards.Placements placements = geoShards.placementsOf(List.of(driverId));
+        String shardKey = geoShards.keyFor(placements.vehicleTypes().get(driverId), latitude, longitude);
+        String previousShard = placements.currentShards().get(driverId);
+        if (previousShard != null && !previousShard.equals(shardKey)) {
+            geoOps.remove(previousShard, driverId);
+        }
+        geoOps.add(shardKey, new Point(longitude, latitude), driverId);
+        redisTemplate.opsForHash().put(DRIVER_SHARD_KEY, driverId, shardKey);
+        spatialIndex.update(driverId, latitude, longitude);
     }
 
-    public List<String> findNearbyDrivers(double latitude, double longitude, double radiusInKm) {
-        log.debug("findNearbyDrivers called with latitude={}, longitude={}, radiusInKm={}", latitude, longitude,
-                radiusInKm);
-        Circle area = new Circle(new Point(longitude, latitude), new Distance(radiusInKm, Metrics.KILOMETERS));
-        GeoResults<RedisGeoCommands.GeoLocation<String>> results = geoOps.radius(DRIVER_LOCATION_KEY, area);
+    /**
+     * Online drivers within the radius, nearest first. Only the geo shards that
+     * can hold drivers eligible for {@code vehicleType} are searched.
+     *
+     * @param limit       max drivers to return, 0 for no limit
+     * @param vehicleType only drivers of this type (or without a declared type); null for any
+     */
+    public List<NearbyDriver> findNearbyDrivers(double latitude, double longitude, double radiusInKm, int limit,
+            VehicleType vehicleType) {
+        log.debug("findNearbyDrivers called with latitude={}, longitude={}, radiusInKm={}, limit={}, vehicleType={}",
+                latitude, longitude, radiusInKm, limit, vehicleType);
+        return findNearbyDrivers(latitude, longitude, 0, radiusInKm, limit, vehicleType);
+    }
 
-        if (results == null)
-            return List.of();
+    /**
+     * Online drivers in the ring between {@code minRadiusInKm} (exclusive) and
+     * {@code radiusInKm} (inclusive), nearest first.
+     */
+    public List<NearbyDriver> findNearbyDrivers(double latitude, double longitude, double minRadiusInKm,
+            double radiusInKm, int limit, VehicleType vehicleType) {
+        if (spatialIndex.isEnabled()) {
+            return spatialIndex.findNearby(latitude, longitude, minRadiusInKm, radiusInKm, limit, vehicleType);
+        }
+        List<String> shards = geoShards.keysFor(vehicleType, latitude, longitude, radiusInKm);
+        return nearbyDriverQuery.find(shards, latitude, longitude, minRadiusInKm, radiusInKm, limit);
+    }
 
-        return results.getContent().stream()
-                .map(res -> res.getContent().getName())
-                .filter(driverId -> "ONLINE".equals(redisTemplate.opsForHash().get(DRIVER_STATUS_KEY, driverId)))
-                .toList();
+    private void removeFromAllShards(String driverId) {
+        List<String> shards = geoShards.allKeys();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String shard : shards) {
+                conn.zRem(shard, driverId);
+            }
+            conn.hDel(DRIVER_SHARD_KEY, driverId);
+            return null;
+        });
     }
 
     public void cacheTripPassenger(UUID tripId, UUID passengerId) {
@@ -90,34 +140,17 @@ public class DriverService {
 
 
 
-    // === Called by WebSocket handler on every GPS tick ===
-    public void handleStreamingLocation(DriverLocationMessage msg) {
-        log.debug("handleStreamingLocation called: driverId={}, lat={}, lng={}, heading={}, speed={}, timestamp={}",
-                msg.driverId(), msg.lat(), msg.lng(), msg.heading(), msg.speed(), msg.timestamp());
+    // === Called by the location coalescer with the newest tick per driver ===
+    public void handleStreamingLocations(List<DriverLocationMessage> batch) {
+        log.debug("handleStreamingLocations called with {} ticks", batch.size());
 
-        // 1) Update Redis Geo
-        Point position = new Point(msg.lng(), msg.lat());
-        log.debug("Updating Redis Geo: key={}, position={}, driverId={}", DRIVER_LOCATION_KEY, position,
-                msg.driverId());
-        geoOps.add(DRIVER_LOCATION_KEY, position, msg.driverId());
-
-        // 2) Store extra metadata (optional)
-        String metaKey = DRIVER_META_PREFIX + msg.driverId();
-        log.debug("Storing metadata in Redis Hash: metaKey={}", metaKey);
-        if (msg.heading() != null) {
-            log.debug("Storing heading: {}", msg.heading());
-            hashOps.put(metaKey, "heading", msg.heading().toString());
-        }
-        if (msg.speed() != null) {
-            log.debug("Storing speed: {}", msg.speed());
-            hashOps.put(metaKey, "speed", msg.speed().toString());
+        // 1) Queue Geo + metadata writes; flushed to Redis in pipelined batches
+        for (DriverLocationMessage msg : batch) {
+            locationBatchWriter.enqueue(msg);
+            spatialIndex.update(msg.driverId(), msg.lat(), msg.lng());
         }
-        String updatedAt = msg.timestamp() != null ? msg.timestamp().toString() : Instant.now().toString();
-        log.debug("Storing updatedAt: {}", updatedAt);
-        hashOps.put(metaKey, "updatedAt", updatedAt);
 
-        // 3) Publish integration event to RabbitMQ
-        log.debug("Publishing location update event to RabbitMQ: {}", msg);
-        locationUpdatePublisher.publishLocationUpdate(msg);
+        // 2) Publish integration events to RabbitMQ, one channel for the whole batch
+        locationUpdatePublisher.publishLocationUpdates(batch);
     }
 }
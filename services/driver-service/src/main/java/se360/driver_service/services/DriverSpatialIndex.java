@@ -0,0 +1,299 @@
+package se360.driver_service.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import se360.driver_service.models.NearbyDriver;
+import se360.driver_service.models.VehicleType;
+import se360.driver_service.utils.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional in-JVM grid index of online drivers.
+ *
+ * Drivers are bucketed into fixed lat/lng cells of {@code cell-size-deg}
+ * degrees. A radius search only visits the cells overlapping the search
+ * bounding box, so {@code /drivers/search} and trip matching are answered from
+ * memory plus at most one status check.
+ *
+ * Redis stays the source of truth: the index is rebuilt from
+ * {@code driver:status} and the {@code driver:locations*} shards on startup and then every
+ * {@code rebuild-interval-ms}, which also picks up writes made by other
+ * driver-service instances.
+ *
+ * Between rebuilds the index only sees this instance's status changes, so with
+ * {@code verify-status} (the default) the candidates of a search are checked
+ * against {@code driver:status} and {@code driver:vehicle} with one pipelined
+ * HMGET pair before they are returned. Turning it off answers searches from
+ * memory alone and is only safe with a single driver-service instance.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverSpatialIndex {
+
+    private record Entry(double lat, double lng, long cell) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final DriverGeoShards geoShards;
+
+    @Value("${driver.location.index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${driver.location.index.cell-size-deg:0.01}")
+    private double cellSizeDeg;
+
+    @Value("${driver.location.index.rebuild-interval-ms:60000}")
+    private long rebuildIntervalMs;
+
+    @Value("${driver.location.index.verify-status:true}")
+    private boolean verifyStatus;
+
+    private final Map<String, Entry> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+    // Online drivers -> declared vehicle type ("" when none was declared)
+    private final Map<String, String> online = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        if (rebuildIntervalMs > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("driver-index-rebuild").daemon(true).factory());
+            scheduler.scheduleWithFixedDelay(this::rebuildSafely, rebuildIntervalMs, rebuildIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void markOnline(String driverId, VehicleType vehicleType) {
+        if (enabled) {
+            online.put(driverId, vehicleType != null ? vehicleType.name() : "");
+        }
+    }
+
+    public void remove(String driverId) {
+        if (!enabled) {
+            return;
+        }
+        online.remove(driverId);
+        Entry previous = positions.remove(driverId);
+        if (previous != null) {
+            removeFromCell(previous.cell(), driverId);
+        }
+    }
+
+    public void update(String driverId, double lat, double lng) {
+        if (!enabled) {
+            return;
+        }
+        long cell = cellOf(lat, lng);
+        positions.compute(driverId, (id, previous) -> {
+            if (previous == null || previous.cell() != cell) {
+                if (previous != null) {
+                    removeFromCell(previous.cell(), id);
+                }
+                cells.compute(cell, (c, members) -> {
+                    Set<String> updated = members != null ? members : ConcurrentHashMap.newKeySet();
+                    updated.add(id);
+                    return updated;
+                });
+            }
+            return new Entry(lat, lng, cell);
+        });
+    }
+
+    /**
+     * Online drivers within the radius, nearest first. Same semantics as
+     * {@link NearbyDriverQuery#find}.
+     */
+    public List<NearbyDriver> findNearby(double lat, double lng, double radiusKm, int limit,
+            VehicleType vehicleType) {
+        return findNearby(lat, lng, 0, radiusKm, limit, vehicleType);
+    }
+
+    /**
+     * Ring variant, drivers at or within {@code minRadiusKm} are skipped.
+     */
+    public List<NearbyDriver> findNearby(double lat, double lng, double minRadiusKm, double radiusKm, int limit,
+            VehicleType vehicleType) {
+        double dLat = radiusKm / GeoUtils.KM_PER_DEGREE;
+        double dLng = radiusKm / (GeoUtils.KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+
+        int minLat = index(lat - dLat);
+        int maxLat = index(lat + dLat);
+        int minLng = index(lng - dLng);
+        int maxLng = index(lng + dLng);
+
+        List<NearbyDriver> hits = new ArrayList<>();
+        for (int y = minLat; y <= maxLat; y++) {
+            for (int x = minLng; x <= maxLng; x++) {
+                Set<String> members = cells.get(pack(y, x));
+                if (members == null) {
+                    continue;
+                }
+                for (String driverId : members) {
+                    Entry e = positions.get(driverId);
+                    String declared = online.get(driverId);
+                    if (e == null || declared == null || !matchesVehicleType(declared, vehicleType)) {
+                        continue;
+                    }
+                    double d = GeoUtils.haversineKm(lat, lng, e.lat(), e.lng());
+                    if (d > minRadiusKm && d <= radiusKm) {
+                        hits.add(new NearbyDriver(driverId, d, e.lat(), e.lng()));
+                    }
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(NearbyDriver::distanceKm));
+        if (verifyStatus && !hits.isEmpty()) {
+            hits = stillEligible(hits, vehicleType);
+        }
+        return limit > 0 && hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    /**
+     * Drop candidates that went offline or switched vehicles through another
+     * instance since the last rebuild, and correct the index for them.
+     */
+    private List<NearbyDriver> stillEligible(List<NearbyDriver> hits, VehicleType vehicleType) {
+        String[] driverIds = hits.stream().map(NearbyDriver::driverId).toArray(String[]::new);
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.hMGet(DriverService.DRIVER_STATUS_KEY, driverIds);
+            conn.hMGet(DriverService.DRIVER_VEHICLE_KEY, driverIds);
+            return null;
+        });
+        @SuppressWarnings("unchecked")
+        List<String> statuses = (List<String>) replies.get(0);
+        @SuppressWarnings("unchecked")
+        List<String> types = (List<String>) replies.get(1);
+
+        List<NearbyDriver> eligible = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            String driverId = driverIds[i];
+            if (!"ONLINE".equals(statuses.get(i))) {
+                online.remove(driverId);
+                continue;
+            }
+            String declared = types.get(i) != null ? types.get(i) : "";
+            online.put(driverId, declared);
+            if (matchesVehicleType(declared, vehicleType)) {
+                eligible.add(hits.get(i));
+            }
+        }
+        return eligible;
+    }
+
+    /**
+     * Reconcile the index with Redis: one HGETALL each for statuses and vehicle
+     * types, then one ZRANGE and one GEOPOS per geo shard.
+     */
+    public void rebuild() {
+        Map<Object, Object> statuses = redisTemplate.opsForHash().entries(DriverService.DRIVER_STATUS_KEY);
+        Map<Object, Object> vehicleTypes = redisTemplate.opsForHash().entries(DriverService.DRIVER_VEHICLE_KEY);
+        Map<String, String> onlineNow = new HashMap<>();
+        statuses.forEach((driverId, status) -> {
+            if ("ONLINE".equals(status)) {
+                onlineNow.put((String) driverId, (String) vehicleTypes.getOrDefault(driverId, ""));
+            }
+        });
+
+        Set<String> seen = new HashSet<>();
+        for (String shard : geoShards.allKeys()) {
+            Set<String> members = redisTemplate.opsForZSet().range(shard, 0, -1);
+            if (members == null || members.isEmpty()) {
+                continue;
+            }
+            List<String> located = new ArrayList<>(members);
+            List<Point> points = redisTemplate.opsForGeo().position(shard, located.toArray(String[]::new));
+            for (int i = 0; i < located.size(); i++) {
+                Point p = points != null && i < points.size() ? points.get(i) : null;
+                if (p != null) {
+                    update(located.get(i), p.getY(), p.getX());
+                    seen.add(located.get(i));
+                }
+            }
+        }
+
+        online.keySet().retainAll(onlineNow.keySet());
+        online.putAll(onlineNow);
+        for (String driverId : positions.keySet()) {
+            if (!seen.contains(driverId)) {
+                Entry previous = positions.remove(driverId);
+                if (previous != null) {
+                    removeFromCell(previous.cell(), driverId);
+                }
+            }
+        }
+
+        log.info("Driver spatial index rebuilt: {} online, {} located", online.size(), positions.size());
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Failed to rebuild driver spatial index from Redis", e);
+        }
+    }
+
+    private static boolean matchesVehicleType(String declared, VehicleType requested) {
+        return requested == null || declared.isEmpty() || declared.equals(requested.name());
+    }
+
+    private void removeFromCell(long cell, String driverId) {
+        cells.computeIfPresent(cell, (c, members) -> {
+            members.remove(driverId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private long cellOf(double lat, double lng) {
+        return pack(index(lat), index(lng));
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDeg);
+    }
+
+    private static long pack(int latIndex, int lngIndex) {
+        return ((long) latIndex << 32) | (lngIndex & 0xffffffffL);
+    }
+}
@@ -0,0 +1,64 @@
+package se360.driver_service.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se360.driver_service.models.NearbyDriver;
+import se360.driver_service.models.VehicleType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Candidate search for trip matching over growing rings around the pickup.
+ *
+ * Rings are searched in the order of {@code search-radii-km} (e.g. 1, 2, 3,
+ * 5 km) until at least {@code target-candidates} online drivers have been
+ * found. Each ring only looks at drivers beyond the previous radius, and the
+ * hits of the inner rings are kept, so nothing is scanned twice. Dense areas
+ * usually stop after the first, cheapest ring; sparse ones keep widening
+ * instead of giving up at a fixed radius.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpandingDriverSearch {
+
+    /**
+     * @param drivers  candidates, nearest first
+     * @param radiusKm radius of the last ring that was searched
+     */
+    public record Result(List<NearbyDriver> drivers, double radiusKm) {
+    }
+
+    private final DriverService driverService;
+
+    @Value("${driver.matching.search-radii-km:1,2,3,5}")
+    private double[] radiiKm;
+
+    @Value("${driver.matching.target-candidates:10}")
+    private int targetCandidates;
+
+    @Value("${driver.matching.candidate-pool-size:50}")
+    private int candidatePoolSize;
+
+    public Result search(double lat, double lng, VehicleType vehicleType) {
+        List<NearbyDriver> found = new ArrayList<>();
+        double innerKm = 0;
+        for (double radiusKm : radiiKm) {
+            if (radiusKm <= innerKm) {
+                continue;
+            }
+            int remaining = candidatePoolSize > 0 ? candidatePoolSize - found.size() : 0;
+            found.addAll(driverService.findNearbyDrivers(lat, lng, innerKm, radiusKm, remaining, vehicleType));
+            innerKm = radiusKm;
+
+            if (found.size() >= targetCandidates || (candidatePoolSize > 0 && found.size() >= candidatePoolSize)) {
+                log.debug("Ring search stopped at {} km with {} candidates", radiusKm, found.size());
+                break;
+            }
+        }
+        return new Result(found, innerKm);
+    }
+}
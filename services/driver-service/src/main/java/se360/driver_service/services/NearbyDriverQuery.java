@@ -0,0 +1,75 @@
+package se360.driver_service.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import se360.driver_service.models.NearbyDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nearby ONLINE driver lookup as a server-side Lua script.
+ *
+ * GEOSEARCH over every requested shard, the status check, the merge by
+ * distance and the count limit all run inside Redis, so a search costs exactly
+ * one EVALSHA round-trip instead of one GEORADIUS plus one HGET per driver in
+ * the radius.
+ */
+@Component
+@RequiredArgsConstructor
+public class NearbyDriverQuery {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/nearby-online-drivers.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * @param geoKeys shards to search, see {@link DriverGeoShards#keysFor}
+     * @param limit   max drivers to return, 0 for no limit
+     * @return online drivers within the radius, nearest first
+     */
+    public List<NearbyDriver> find(List<String> geoKeys, double latitude, double longitude, double radiusInKm,
+            int limit) {
+        return find(geoKeys, latitude, longitude, 0, radiusInKm, limit);
+    }
+
+    /**
+     * Ring variant: drivers at or within {@code minRadiusInKm} are skipped
+     * before their status is checked, so an expanding search does not re-read
+     * the rings it has already covered.
+     */
+    public List<NearbyDriver> find(List<String> geoKeys, double latitude, double longitude, double minRadiusInKm,
+            double radiusInKm, int limit) {
+        List<String> keys = new ArrayList<>(geoKeys.size() + 1);
+        keys.add(DriverService.DRIVER_STATUS_KEY);
+        keys.addAll(geoKeys);
+
+        List<?> raw = redisTemplate.execute(
+                SCRIPT,
+                keys,
+                Double.toString(longitude),
+                Double.toString(latitude),
+                Double.toString(radiusInKm),
+                Integer.toString(Math.max(limit, 0)),
+                Double.toString(Math.max(minRadiusInKm, 0)));
+
+        if (raw == null || raw.isEmpty()) {
+            return List.of();
+        }
+
+        List<NearbyDriver> drivers = new ArrayList<>(raw.size() / 4);
+        for (int i = 0; i + 3 < raw.size(); i += 4) {
+            drivers.add(new NearbyDriver(
+                    (String) raw.get(i),
+                    Double.parseDouble((String) raw.get(i + 1)),
+                    Double.parseDouble((String) raw.get(i + 3)),
+                    Double.parseDouble((String) raw.get(i + 2))));
+        }
+        return drivers;
+    }
+}
@@ -0,0 +1,164 @@
+package se360.driver_service.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se360.driver_service.messaging.events.TripOfferedEvent;
+import se360.driver_service.messaging.events.TripRequestedEvent;
+import se360.driver_service.messaging.publisher.TripEventPublisher;
+import se360.driver_service.models.NearbyDriver;
+import se360.driver_service.services.CandidateRanker.RankedCandidate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Offers a requested trip to the best-ranked drivers in waves.
+ *
+ * Each wave offers the trip to the next {@code offers-per-wave} candidates.
+ * If nobody has accepted after {@code wave-timeout-ms}, the next wave goes
+ * out, up to {@code max-waves}. Dispatch stops as soon as a trip.assigned or
+ * trip.cancelled event for the trip arrives.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TripDispatcher {
+
+    private static final class DispatchSession {
+        private final TripRequestedEvent trip;
+        private final Deque<RankedCandidate> remaining;
+        private int wave;
+        private ScheduledFuture<?> nextWave;
+        private boolean closed;
+        // Not synchronized: publishing blocks on I/O and would pin a virtual thread
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private DispatchSession(TripRequestedEvent trip, List<RankedCandidate> ranked) {
+            this.trip = trip;
+            this.remaining = new ArrayDeque<>(ranked);
+        }
+    }
+
+    private final CandidateRanker candidateRanker;
+    private final TripEventPublisher eventPublisher;
+
+    @Value("${driver.matching.offers-per-wave:3}")
+    private int offersPerWave;
+
+    @Value("${driver.matching.wave-timeout-ms:10000}")
+    private long waveTimeoutMs;
+
+    @Value("${driver.matching.max-waves:3}")
+    private int maxWaves;
+
+    private final Map<UUID, DispatchSession> sessions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("trip-dispatcher").daemon(true).factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Rank the candidates and send the first wave of offers.
+     */
+    public void dispatch(TripRequestedEvent trip, double radiusKm, List<NearbyDriver> candidates) {
+        List<RankedCandidate> ranked = candidateRanker.rank(trip.getPickupLat(), trip.getPickupLng(), radiusKm,
+                candidates);
+        DispatchSession session = new DispatchSession(trip, ranked);
+        if (sessions.putIfAbsent(trip.getTripId(), session) != null) {
+            log.debug("Trip {} is already being dispatched", trip.getTripId());
+            return;
+        }
+        offerNextWave(session);
+    }
+
+    /**
+     * Stop dispatching a trip, e.g. because it was assigned or cancelled.
+     */
+    public void close(UUID tripId) {
+        DispatchSession session = sessions.remove(tripId);
+        if (session == null) {
+            return;
+        }
+        session.lock.lock();
+        try {
+            session.closed = true;
+            if (session.nextWave != null) {
+                session.nextWave.cancel(false);
+            }
+        } finally {
+            session.lock.unlock();
+        }
+        log.debug("Stopped dispatching trip {} after {} wave(s)", tripId, session.wave);
+    }
+
+    private void offerNextWave(DispatchSession session) {
+        UUID tripId = session.trip.getTripId();
+        session.lock.lock();
+        try {
+            if (session.closed) {
+                return;
+            }
+            if (session.wave >= maxWaves || session.remaining.isEmpty()) {
+                sessions.remove(tripId, session);
+                session.closed = true;
+                log.info("No driver accepted trip {} after {} wave(s)", tripId, session.wave);
+                return;
+            }
+
+            session.wave++;
+            for (int i = 0; i < offersPerWave && !session.remaining.isEmpty(); i++) {
+                RankedCandidate candidate = session.remaining.poll();
+                eventPublisher.publishTripOffered(toOffer(session.trip, candidate));
+                log.debug("Offered trip {} to driver {} (wave {}, score {}, {} km)", tripId, candidate.driverId(),
+                        session.wave, candidate.score(), candidate.distanceKm());
+            }
+
+            session.nextWave = scheduler.schedule(() -> offerNextWaveSafely(session), waveTimeoutMs,
+                    TimeUnit.MILLISECONDS);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    private void offerNextWaveSafely(DispatchSession session) {
+        try {
+            offerNextWave(session);
+        } catch (Exception e) {
+            log.error("Failed to send next offer wave for trip {}", session.trip.getTripId(), e);
+        }
+    }
+
+    private static TripOfferedEvent toOffer(TripRequestedEvent trip, RankedCandidate candidate) {
+        return TripOfferedEvent.builder()
+                .tripId(trip.getTripId())
+                .driverId(UUID.fromString(candidate.driverId()))
+                .passengerId(trip.getPassengerId())
+                .pickupLat(trip.getPickupLat())
+                .pickupLng(trip.getPickupLng())
+                .dropoffLat(trip.getDropoffLat())
+                .dropoffLng(trip.getDropoffLng())
+                .vehicleType(trip.getVehicleType())
+                .build();
+    }
+}
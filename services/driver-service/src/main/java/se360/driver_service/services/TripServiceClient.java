@@ -0,0 +1,114 @@
+package se360.driver_service.services;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import se360.driver_service.models.AcceptTripRequest;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Calls to TripService, behind a circuit breaker.
+ *
+ * Transport failures, 5xx responses and calls slower than
+ * {@code slow-call-ms} count against the breaker. While it is open, or when
+ * no pooled connection frees up in time, callers get a 503 with Retry-After
+ * immediately instead of piling onto a saturated TripService. Breaker state
+ * and call outcomes are exported as {@code resilience4j.circuitbreaker.*}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TripServiceClient {
+
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${trip.service.url}")
+    private String tripServiceUrl;
+
+    @Value("${trip.service.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${trip.service.circuit-breaker.slow-call-ms:2000}")
+    private long slowCallMs;
+
+    @Value("${trip.service.circuit-breaker.sliding-window-size:50}")
+    private int slidingWindowSize;
+
+    @Value("${trip.service.circuit-breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${trip.service.circuit-breaker.open-duration-ms:5000}")
+    private long openDurationMs;
+
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    void init() {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallMs))
+                .waitDurationInOpenState(Duration.ofMillis(openDurationMs))
+                .permittedNumberOfCallsInHalfOpenState(5)
+                .recordResult(result -> result instanceof ResponseEntity<?> response
+                        && response.getStatusCode().is5xxServerError())
+                .build();
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        this.circuitBreaker = registry.circuitBreaker("trip-service");
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+    }
+
+    /**
+     * Forward a driver's accept to TripService. TripService's status and body
+     * are returned unchanged.
+     */
+    public ResponseEntity<String> acceptTrip(UUID tripId, UUID driverId) {
+        String url = tripServiceUrl + "/trips/" + tripId + "/accept";
+        HttpEntity<AcceptTripRequest> request = new HttpEntity<>(new AcceptTripRequest(driverId));
+
+        try {
+            ResponseEntity<String> response = circuitBreaker.executeSupplier(
+                    () -> restTemplate.exchange(url, HttpMethod.PUT, request, String.class));
+            return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+        } catch (CallNotPermittedException e) {
+            return unavailable("TripService is overloaded, circuit open");
+        } catch (ResourceAccessException e) {
+            if (e.getCause() instanceof ConnectionRequestTimeoutException) {
+                log.warn("No pooled connection to TripService became free in time");
+                return unavailable("TripService is overloaded, connection pool exhausted");
+            }
+            log.error("Error forwarding accept request to TripService", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to communicate with TripService: " + e.getMessage());
+        }
+    }
+
+    private ResponseEntity<String> unavailable(String reason) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, openDurationMs / 1000)))
+                .body(reason);
+    }
+}
@@ -0,0 +1,21 @@
+package se360.driver_service.utils;
+
+/**
+ * Square lat/lng cells used as surge zones.
+ *
+ * Must stay identical to {@code se360.trip_service.util.GeoCells}: both
+ * services key their demand and supply counters by these cell ids, with the
+ * same {@code surge.cell-size-deg}.
+ */
+public final class GeoCells {
+
+    private GeoCells() {
+    }
+
+    /**
+     * @return {@code <row>:<column>} of the cell containing the point
+     */
+    public static String cellOf(double lat, double lng, double sizeDeg) {
+        return (long) Math.floor(lat / sizeDeg) + ":" + (long) Math.floor(lng / sizeDeg);
+    }
+}
@@ -0,0 +1,47 @@
+package se360.driver_service.utils;
+
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    // Length of one degree of latitude (and of longitude at the equator)
+    public static final double KM_PER_DEGREE = 111.32;
+
+    // Redis GEOADD rejects latitudes beyond the Web Mercator limit
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * True if the pair can be stored in a Redis geo set: finite, |lat| within
+     * {@link #MAX_LATITUDE} and |lng| within 180.
+     */
+    public static boolean isValidPosition(double lat, double lng) {
+        return Double.isFinite(lat) && Double.isFinite(lng)
+                && Math.abs(lat) <= MAX_LATITUDE && Math.abs(lng) <= 180;
+    }
+
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Initial bearing from the first point to the second, in degrees clockwise from north [0, 360).
+     */
+    public static double bearingDegrees(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLng = Math.toRadians(lng2 - lng1);
+
+        double y = Math.sin(dLng) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLng);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+    }
+}
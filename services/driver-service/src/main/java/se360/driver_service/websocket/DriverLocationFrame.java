@@ -0,0 +1,77 @@
+package se360.driver_service.websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+
+import se360.driver_service.models.DriverLocationMessage;
+
+/**
+ * Fixed-layout binary location tick, used by clients that negotiate the
+ * {@value #SUB_PROTOCOL} WebSocket sub-protocol.
+ *
+ * <pre>
+ * offset  size  field
+ *      0     1  version (= 1)
+ *      1     8  lat, IEEE 754 double
+ *      9     8  lng, IEEE 754 double
+ *     17     4  heading in degrees, float, NaN when unknown
+ *     21     4  speed, float, NaN when unknown
+ *     25     8  client timestamp in epoch millis, 0 when unknown
+ * </pre>
+ *
+ * All fields are big-endian (network order). The driver id is not part of the
+ * frame: it is the one authenticated at handshake.
+ */
+public final class DriverLocationFrame {
+
+    public static final String SUB_PROTOCOL = "driver-location.v1.bin";
+    public static final String JSON_SUB_PROTOCOL = "driver-location.v1.json";
+
+    public static final byte VERSION = 1;
+    public static final int SIZE = 33;
+
+    private DriverLocationFrame() {
+    }
+
+    /**
+     * Decode a frame using absolute reads, without copying the payload.
+     *
+     * @throws IllegalArgumentException if the frame has the wrong size or version
+     */
+    public static DriverLocationMessage decode(String driverId, ByteBuffer frame) {
+        int p = frame.position();
+        if (frame.remaining() != SIZE || frame.get(p) != VERSION) {
+            throw new IllegalArgumentException("Invalid location frame: " + frame.remaining() + " bytes");
+        }
+        frame.order(ByteOrder.BIG_ENDIAN);
+
+        double lat = frame.getDouble(p + 1);
+        double lng = frame.getDouble(p + 9);
+        float heading = frame.getFloat(p + 17);
+        float speed = frame.getFloat(p + 21);
+        long timestamp = frame.getLong(p + 25);
+
+        return new DriverLocationMessage(
+                driverId,
+                lat,
+                lng,
+                Float.isNaN(heading) ? null : (double) heading,
+                Float.isNaN(speed) ? null : (double) speed,
+                timestamp != 0 ? Instant.ofEpochMilli(timestamp) : null);
+    }
+
+    /**
+     * Encode a tick, e.g. for clients and tests.
+     */
+    public static ByteBuffer encode(double lat, double lng, Double heading, Double speed, Instant timestamp) {
+        ByteBuffer frame = ByteBuffer.allocate(SIZE).order(ByteOrder.BIG_ENDIAN);
+        frame.put(VERSION)
+                .putDouble(lat)
+                .putDouble(lng)
+                .putFloat(heading != null ? heading.floatValue() : Float.NaN)
+                .putFloat(speed != null ? speed.floatValue() : Float.NaN)
+                .putLong(timestamp != null ? timestamp.toEpochMilli() : 0);
+        return frame.flip();
+    }
+}
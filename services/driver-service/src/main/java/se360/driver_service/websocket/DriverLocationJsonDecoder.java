@@ -0,0 +1,197 @@
+package se360.driver_service.websocket;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.datatype.jsr310.DecimalUtils;
+
+import se360.driver_service.models.DriverLocationMessage;
+
+/**
+ * Streaming decoder for JSON location ticks, one instance per WebSocket session.
+ *
+ * Replaces {@code ObjectMapper.readValue} on the text path: the payload is
+ * copied into a char buffer owned by the session and reused for every frame,
+ * then walked token by token. Numbers are read as primitives, so heading and
+ * speed are only boxed when present, and the driver id is compared against the
+ * authenticated one in place so a matching id allocates no new String.
+ *
+ * Accepts the same input as the databind path with the application's
+ * ObjectMapper: unknown fields are ignored, null or missing lat/lng read as 0,
+ * and the timestamp may be an ISO-8601 string or epoch seconds.
+ *
+ * Not thread-safe; a session delivers its messages one at a time.
+ */
+public final class DriverLocationJsonDecoder {
+
+    private final JsonFactory jsonFactory;
+    private char[] buffer = new char[256];
+
+    public DriverLocationJsonDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * @param expectedDriverId returned as the message's driver id when the
+     *                         payload carries the same id
+     */
+    public DriverLocationMessage decode(String payload, String expectedDriverId) throws IOException {
+        int length = payload.length();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        payload.getChars(0, length, buffer, 0);
+
+        String driverId = null;
+        double lat = 0;
+        double lng = 0;
+        Double heading = null;
+        Double speed = null;
+        Instant timestamp = null;
+
+        try (JsonParser parser = jsonFactory.createParser(buffer, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Location message must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "driverId" -> driverId = readDriverId(parser, expectedDriverId);
+                    case "lat" -> lat = parser.getValueAsDouble();
+                    case "lng" -> lng = parser.getValueAsDouble();
+                    case "heading" -> heading = parser.getValueAsDouble();
+                    case "speed" -> speed = parser.getValueAsDouble();
+                    case "timestamp" -> timestamp = readTimestamp(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        return new DriverLocationMessage(driverId, lat, lng, heading, speed, timestamp);
+    }
+
+    private static String readDriverId(JsonParser parser, String expected) throws IOException {
+        if (expected != null && parser.currentToken() == JsonToken.VALUE_STRING) {
+            char[] chars = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            int length = parser.getTextLength();
+            if (length == expected.length() && regionMatches(chars, offset, expected)) {
+                return expected;
+            }
+        }
+        return parser.getValueAsString();
+    }
+
+    private static boolean regionMatches(char[] chars, int offset, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (chars[offset + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Instant readTimestamp(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return Instant.ofEpochSecond(parser.getLongValue());
+        }
+        if (value == JsonToken.VALUE_NUMBER_FLOAT) {
+            // Split exactly as InstantDeserializer does; a double loses the nanos at current epoch values
+            return DecimalUtils.extractSecondsAndNanos(parser.getDecimalValue(), Instant::ofEpochSecond);
+        }
+        Instant utc = parseUtcInstant(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        if (utc != null) {
+            return utc;
+        }
+        String text = parser.getText();
+        try {
+            return Instant.parse(text);
+        } catch (DateTimeParseException e) {
+            return OffsetDateTime.parse(text).toInstant();
+        }
+    }
+
+    /**
+     * Fast path for the {@code yyyy-MM-ddTHH:mm:ss[.fffffffff]Z} form clients
+     * send, without going through DateTimeFormatter.
+     *
+     * @return null if the text is in any other form, so the caller falls back
+     *         to the full parser
+     */
+    static Instant parseUtcInstant(char[] c, int off, int len) {
+        if (len < 20 || c[off + len - 1] != 'Z' || c[off + 4] != '-' || c[off + 7] != '-' || c[off + 10] != 'T'
+                || c[off + 13] != ':' || c[off + 16] != ':') {
+            return null;
+        }
+        int year = digits(c, off, 4);
+        int month = digits(c, off + 5, 2);
+        int day = digits(c, off + 8, 2);
+        int hour = digits(c, off + 11, 2);
+        int minute = digits(c, off + 14, 2);
+        int second = digits(c, off + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 28 && day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+
+        int nanos = 0;
+        int fractionLength = len - 20;
+        if (fractionLength > 0) {
+            if (c[off + 19] != '.' || fractionLength > 10 || fractionLength < 2) {
+                return null;
+            }
+            int fraction = digits(c, off + 20, fractionLength - 1);
+            if (fraction < 0) {
+                return null;
+            }
+            nanos = fraction;
+            for (int i = fractionLength - 1; i < 9; i++) {
+                nanos *= 10;
+            }
+        } else if (c[off + 19] != 'Z') {
+            return null;
+        }
+
+        long epochSecond = epochDay(year, month, day) * 86_400L + hour * 3_600L + minute * 60L + second;
+        return Instant.ofEpochSecond(epochSecond, nanos);
+    }
+
+    private static int digits(char[] c, int off, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = c[off + i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar, as in LocalDate.toEpochDay
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
@@ -1,39 +1,59 @@
 package se360.driver_service.websocket;
 
+import java.util.List;
+
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import se360.driver_service.models.DriverLocationMessage;
-import se360.driver_service.services.DriverService;
+import se360.driver_service.services.DriverLocationCoalescer;
 
+/**
+ * Location ticks from the driver app.
+ *
+ * Clients that negotiate {@link DriverLocationFrame#SUB_PROTOCOL} send binary
+ * frames; everyone else (including old clients that request no sub-protocol)
+ * keeps sending JSON text messages.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class DriverLocationWebSocketHandler extends TextWebSocketHandler {
+public class DriverLocationWebSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
+    private static final String JSON_DECODER_ATTRIBUTE = "driverLocationJsonDecoder";
+
     private final ObjectMapper objectMapper;
-    private final DriverService driverService;
+    private final DriverLocationCoalescer locationCoalescer;
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(DriverLocationFrame.SUB_PROTOCOL, DriverLocationFrame.JSON_SUB_PROTOCOL);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         String driverId = (String) session.getAttributes().get("driverId");
-        log.info("Driver connected: {}", driverId);
+        session.getAttributes().put(JSON_DECODER_ATTRIBUTE, new DriverLocationJsonDecoder(objectMapper.getFactory()));
+        log.info("Driver connected: {} (sub-protocol: {})", driverId, session.getAcceptedProtocol());
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         try {
-            var payload = objectMapper.readValue(message.getPayload(), DriverLocationMessage.class);
-
             // 1. Authenticate identity from WebSocket session
             String authenticatedDriverId = (String) session.getAttributes().get("driverId");
 
+            var decoder = (DriverLocationJsonDecoder) session.getAttributes().get(JSON_DECODER_ATTRIBUTE);
+            DriverLocationMessage payload = decoder.decode(message.getPayload(), authenticatedDriverId);
+
             // 2. Security check - prevent impersonation
             if (!payload.driverId().equals(authenticatedDriverId)) {
                 log.warn("Driver {} attempted to send location for driver {}", authenticatedDriverId,
@@ -42,8 +62,8 @@ public class DriverLocationWebSocketHandler extends TextWebSocketHandler {
                 return;
             }
 
-            // 3. Process location
-            driverService.handleStreamingLocation(payload);
+            // 3. Process location (newest tick per driver wins until the next flush)
+            locationCoalescer.submit(payload);
 
         } catch (Exception ex) {
             log.warn("Failed to process WS message: {}", message.getPayload());
@@ -52,6 +72,29 @@ public class DriverLocationWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        try {
+            // The frame carries no driver id, so impersonation is impossible by construction
+            String authenticatedDriverId = (String) session.getAttributes().get("driverId");
+            locationCoalescer.submit(DriverLocationFrame.decode(authenticatedDriverId, message.getPayload()));
+        } catch (Exception ex) {
+            log.warn("Failed to process binary WS message ({} bytes) from session {}", message.getPayloadLength(),
+                    session.getId(), ex);
+            session.close(CloseStatus.BAD_DATA);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        String driverId = (String) session.getAttributes().get("driverId");
+        if (driverId != null) {
+            locationCoalescer.disconnected(driverId);
+        }
+        log.info("Driver disconnected: {} ({})", driverId, status);
+    }
+
+    @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
         log.warn("WebSocket transport error: {}", session.getId(), exception);
     }
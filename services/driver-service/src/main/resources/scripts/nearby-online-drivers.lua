@@ -0,0 +1,55 @@
+-- Nearby ONLINE drivers across one or more geo shards in a single round-trip.
+--
+-- KEYS[1]   hash driverId -> ONLINE / OFFLINE
+-- KEYS[2..] geo sets (shards) to search
+-- ARGV[1]   longitude
+-- ARGV[2]   latitude
+-- ARGV[3]   radius in km
+-- ARGV[4]   max drivers to return (0 = no limit)
+-- ARGV[5]   optional inner radius in km: drivers at or within it were already
+--           returned by a smaller ring and are skipped (default 0)
+--
+-- Returns a flat list of (driverId, distanceKm, lng, lat) tuples, nearest first, one per driver.
+
+local limit = tonumber(ARGV[4])
+local minRadius = tonumber(ARGV[5] or '0')
+
+local candidates = {}
+for i = 2, #KEYS do
+    local hits = redis.call('GEOSEARCH', KEYS[i], 'FROMLONLAT', ARGV[1], ARGV[2],
+            'BYRADIUS', ARGV[3], 'km', 'ASC', 'WITHDIST', 'WITHCOORD')
+    local taken = 0
+    for _, hit in ipairs(hits) do
+        if (minRadius == 0 or tonumber(hit[2]) > minRadius) and redis.call('HGET', KEYS[1], hit[1]) == 'ONLINE' then
+            candidates[#candidates + 1] = hit
+            taken = taken + 1
+            -- Each shard is already sorted, so no shard can contribute more than limit drivers
+            if limit > 0 and taken >= limit then
+                break
+            end
+        end
+    end
+end
+
+if #KEYS > 2 then
+    table.sort(candidates, function(a, b) return tonumber(a[2]) < tonumber(b[2]) end)
+end
+
+-- A driver can briefly sit in two shards while a shard move is in flight; keep the nearest entry
+local result = {}
+local seen = {}
+local returned = 0
+for _, hit in ipairs(candidates) do
+    if limit > 0 and returned >= limit then
+        break
+    end
+    if not seen[hit[1]] then
+        seen[hit[1]] = true
+        returned = returned + 1
+        result[#result + 1] = hit[1]
+        result[#result + 1] = hit[2]
+        result[#result + 1] = hit[3][1]
+        result[#result + 1] = hit[3][2]
+    end
+end
+return result
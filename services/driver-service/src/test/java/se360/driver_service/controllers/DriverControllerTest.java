@@ -0,0 +1,56 @@
+package se360.driver_service.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import se360.driver_service.services.ClosedTripCache;
+import se360.driver_service.services.DriverLocationCoalescer;
+import se360.driver_service.services.DriverService;
+import se360.driver_service.services.TripServiceClient;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Accepts for trips seen closed on the event bus are answered locally; every
+ * other accept is forwarded to TripService.
+ */
+class DriverControllerTest {
+
+    private static final UUID TRIP_ID = UUID.randomUUID();
+    private static final UUID DRIVER_ID = UUID.randomUUID();
+
+    private final TripServiceClient tripServiceClient = mock(TripServiceClient.class);
+    private final ClosedTripCache closedTripCache = new ClosedTripCache();
+    private final DriverController controller = new DriverController(mock(DriverService.class),
+            mock(DriverLocationCoalescer.class), tripServiceClient, closedTripCache);
+
+    @Test
+    void closedTripIsRejectedWithoutCallingTripService() {
+        ReflectionTestUtils.setField(closedTripCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(closedTripCache, "maxEntries", 10);
+        closedTripCache.markClosed(TRIP_ID);
+
+        ResponseEntity<String> response = controller.acceptTrip(DRIVER_ID, TRIP_ID);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isEqualTo("\"ALREADY_ASSIGNED\"");
+        verifyNoInteractions(tripServiceClient);
+    }
+
+    @Test
+    void unknownTripIsForwarded() {
+        when(tripServiceClient.acceptTrip(TRIP_ID, DRIVER_ID)).thenReturn(ResponseEntity.ok("\"SUCCESS\""));
+
+        ResponseEntity<String> response = controller.acceptTrip(DRIVER_ID, TRIP_ID);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(tripServiceClient).acceptTrip(TRIP_ID, DRIVER_ID);
+    }
+}
@@ -0,0 +1,158 @@
+package se360.driver_service.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConfirmingPublisherTest {
+
+    private RabbitTemplate rabbitTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ConfirmingPublisher publisher;
+
+    // Confirms the test has not answered yet, oldest first
+    private final Deque<CorrelationData> unconfirmed = new ArrayDeque<>();
+    private final List<Object> sent = new ArrayList<>();
+    private final List<String> messageIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        doAnswer(invocation -> {
+            Message message = invocation.<MessagePostProcessor>getArgument(3)
+                    .postProcessMessage(new Message(new byte[0]));
+            synchronized (unconfirmed) {
+                sent.add(invocation.getArgument(2));
+                messageIds.add(message.getMessageProperties().getMessageId());
+                unconfirmed.add(invocation.getArgument(4));
+            }
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                any(MessagePostProcessor.class), any(CorrelationData.class));
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new ConfirmingPublisher(rabbitTemplate, meterRegistry);
+        ReflectionTestUtils.setField(publisher, "maxInFlight", 2);
+        ReflectionTestUtils.setField(publisher, "acquireTimeoutMs", 0L);
+        ReflectionTestUtils.setField(publisher, "confirmTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(publisher, "maxRetries", 1);
+        ReflectionTestUtils.setField(publisher, "retryBackoffMs", 1L);
+        publisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.stop();
+    }
+
+    @Test
+    void completesOnAckAndFreesTheWindow() {
+        CompletableFuture<Void> result = publisher.publish("ex", "rk", "a");
+        assertThat(result).isNotDone();
+        assertThat(inFlight()).isEqualTo(1);
+
+        confirmNext(true);
+
+        assertThat(result).isCompleted();
+        assertThat(inFlight()).isZero();
+        assertThat(meterRegistry.get("messaging.publish.confirm.latency").tag("exchange", "ex").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void retriesNackedMessageThenGivesUp() throws Exception {
+        CompletableFuture<Void> result = publisher.publish("ex", "rk", "a");
+
+        confirmNext(false);
+        awaitSends(2);
+        assertThat(result).isNotDone();
+
+        confirmNext(false);
+        assertThat(result).failsWithin(1, TimeUnit.SECONDS);
+        assertThat(sent).containsExactly("a", "a");
+        assertThat(messageIds).hasSize(2).doesNotContainNull();
+        assertThat(messageIds.get(1)).isEqualTo(messageIds.get(0));
+        assertThat(meterRegistry.get("messaging.publish.nacked").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("messaging.publish.failed").counter().count()).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void retryThatIsAckedSucceeds() throws Exception {
+        CompletableFuture<Void> result = publisher.publish("ex", "rk", "a");
+
+        confirmNext(false);
+        awaitSends(2);
+        confirmNext(true);
+
+        assertThat(result).succeedsWithin(1, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get("messaging.publish.failed").counter().count()).isZero();
+    }
+
+    @Test
+    void batchOverflowingTheWindowIsRejectedNotBlocked() {
+        CompletableFuture<Void> batch = publisher.publishAll("ex", "rk", List.of("a", "b", "c"));
+
+        verify(rabbitTemplate, times(1)).invoke(any());
+        verify(rabbitTemplate, times(2)).convertAndSend(eq("ex"), eq("rk"), any(Object.class),
+                any(MessagePostProcessor.class), any(CorrelationData.class));
+        assertThat(sent).containsExactly("a", "b");
+        assertThat(meterRegistry.get("messaging.publish.rejected").counter().count()).isEqualTo(1);
+
+        confirmNext(true);
+        confirmNext(true);
+        assertThat(batch).isCompletedExceptionally();
+        assertThat(inFlight()).isZero();
+    }
+
+    private void confirmNext(boolean ack) {
+        CorrelationData correlation;
+        synchronized (unconfirmed) {
+            correlation = unconfirmed.poll();
+        }
+        correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+    }
+
+    private void awaitSends(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (unconfirmed) {
+                if (sent.size() >= count) {
+                    return;
+                }
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("expected " + count + " sends, saw " + sent.size());
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("messaging.publish.in-flight").gauge().value();
+    }
+}
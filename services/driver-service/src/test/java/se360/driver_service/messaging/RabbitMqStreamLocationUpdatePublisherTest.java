@@ -0,0 +1,61 @@
+package se360.driver_service.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+import se360.driver_service.models.DriverLocationMessage;
+import se360.driver_service.models.VehicleType;
+import se360.driver_service.services.DriverGeoShards;
+import se360.driver_service.websocket.DriverLocationFrame;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RabbitMqStreamLocationUpdatePublisherTest {
+
+    private final DriverGeoShards geoShards = mock(DriverGeoShards.class);
+    private RabbitMqStreamLocationUpdatePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new RabbitMqStreamLocationUpdatePublisher(new RabbitProperties(), geoShards,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(publisher, "routingPrefix", "driver.location");
+    }
+
+    @Test
+    void routesByCityAndVehicleType() {
+        DriverLocationMessage inCity = new DriverLocationMessage("d1", 10.77, 106.70, null, null, null);
+        DriverLocationMessage outside = new DriverLocationMessage("d2", 21.0, 105.8, null, null, null);
+        when(geoShards.cityOf(10.77, 106.70)).thenReturn("HCM");
+
+        assertThat(publisher.routingKey(inCity, VehicleType.CAR_4_SEAT)).isEqualTo("driver.location.HCM.CAR_4_SEAT");
+        assertThat(publisher.routingKey(outside, null)).isEqualTo("driver.location.other.any");
+    }
+
+    @Test
+    void encodesTickAsTransientBinaryFrame() {
+        Instant timestamp = Instant.ofEpochMilli(1_700_000_000_123L);
+        DriverLocationMessage tick = new DriverLocationMessage("d1", 10.77, 106.70, 90.0, 12.5, timestamp);
+
+        Message message = RabbitMqStreamLocationUpdatePublisher.toMessage(tick);
+
+        assertThat(message.getBody()).hasSize(DriverLocationFrame.SIZE);
+        assertThat(message.getMessageProperties().getDeliveryMode()).isEqualTo(MessageDeliveryMode.NON_PERSISTENT);
+        assertThat(message.getMessageProperties().getContentType())
+                .isEqualTo(RabbitMqStreamLocationUpdatePublisher.CONTENT_TYPE);
+        assertThat((String) message.getMessageProperties()
+                .getHeader(RabbitMqStreamLocationUpdatePublisher.DRIVER_ID_HEADER)).isEqualTo("d1");
+
+        DriverLocationMessage decoded = DriverLocationFrame.decode("d1", ByteBuffer.wrap(message.getBody()));
+        assertThat(decoded).isEqualTo(tick);
+    }
+}
@@ -0,0 +1,65 @@
+package se360.driver_service.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import se360.driver_service.models.NearbyDriver;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CandidateRankerTest {
+
+    private static final double LAT = 10.7769;
+    private static final double LNG = 106.7009;
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final CandidateRanker ranker = new CandidateRanker(redisTemplate);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ranker, "distanceWeight", 0.5);
+        ReflectionTestUtils.setField(ranker, "headingWeight", 0.15);
+        ReflectionTestUtils.setField(ranker, "freshnessWeight", 0.2);
+        ReflectionTestUtils.setField(ranker, "ratingWeight", 0.15);
+        ReflectionTestUtils.setField(ranker, "staleAfterMs", 30_000L);
+    }
+
+    @Test
+    void malformedMetaFieldsGetNeutralScores() {
+        NearbyDriver malformed = new NearbyDriver("bad", 1.0, LAT + 0.009, LNG);
+        NearbyDriver missing = new NearbyDriver("none", 1.0, LAT + 0.009, LNG);
+        metas(Arrays.asList("north-ish", "yesterday", "NaN"), Arrays.asList(null, null, null));
+
+        List<CandidateRanker.RankedCandidate> ranked = ranker.rank(LAT, LNG, 3, List.of(malformed, missing));
+
+        assertThat(ranked).hasSize(2);
+        assertThat(ranked.get(0).score()).isCloseTo(ranked.get(1).score(), within(1e-9));
+    }
+
+    @Test
+    void wellFormedMetaStillRanksFirst() {
+        NearbyDriver good = new NearbyDriver("good", 1.0, LAT + 0.009, LNG);
+        NearbyDriver bad = new NearbyDriver("bad", 1.0, LAT + 0.009, LNG);
+        // good drives south towards the pickup, just reported and is rated 5
+        metas(List.of("x", "", "five"), List.of("180", Instant.now().toString(), "5"));
+
+        assertThat(ranker.rank(LAT, LNG, 3, List.of(bad, good)))
+                .extracting(CandidateRanker.RankedCandidate::driverId).containsExactly("good", "bad");
+    }
+
+    @SafeVarargs
+    private void metas(List<String>... perCandidate) {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of((Object[]) perCandidate));
+    }
+}
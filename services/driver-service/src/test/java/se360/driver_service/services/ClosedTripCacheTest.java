@@ -0,0 +1,55 @@
+package se360.driver_service.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClosedTripCacheTest {
+
+    private final ClosedTripCache cache = new ClosedTripCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+    }
+
+    @Test
+    void onlyTripsSeenClosedAreClosed() {
+        UUID closed = UUID.randomUUID();
+
+        cache.markClosed(closed);
+
+        assertThat(cache.isClosed(closed)).isTrue();
+        assertThat(cache.isClosed(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void expiredEntryIsAMiss() {
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+        UUID tripId = UUID.randomUUID();
+
+        cache.markClosed(tripId);
+
+        assertThat(cache.isClosed(tripId)).isFalse();
+    }
+
+    @Test
+    void fullCacheDropsNewEntriesRatherThanRejectingWrongTrips() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        cache.markClosed(first);
+        cache.markClosed(second);
+        cache.markClosed(third);
+
+        assertThat(cache.isClosed(first)).isTrue();
+        assertThat(cache.isClosed(second)).isTrue();
+        assertThat(cache.isClosed(third)).isFalse();
+    }
+}
@@ -0,0 +1,96 @@
+package se360.driver_service.services;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+import se360.driver_service.models.DriverLocationMessage;
+
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Surge supply counts only drivers who can take a ride, although every
+ * streaming driver's position is written.
+ */
+class DriverLocationBatchWriterTest {
+
+    private static final double LAT = 10.7769;
+    private static final double LNG = 106.7009;
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private DriverLocationBatchWriter writer;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        writer = new DriverLocationBatchWriter(redisTemplate, new DriverGeoShards(redisTemplate));
+        ReflectionTestUtils.setField(writer, "maxBatchSize", 256);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 5L);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "enqueueTimeoutMs", 50L);
+        ReflectionTestUtils.setField(writer, "surgeSupplyEnabled", true);
+        ReflectionTestUtils.setField(writer, "surgeCellSizeDeg", 0.02);
+        ReflectionTestUtils.setField(writer, "surgeTtlMinutes", 15L);
+    }
+
+    @Test
+    void busyDriversTicksDoNotRaiseSupply() throws Exception {
+        redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, "available", "ONLINE");
+        redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, "busy", "ON_TRIP");
+        redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, "offline", "OFFLINE");
+
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            writer.enqueue(tick("available", i));
+            writer.enqueue(tick("busy", i));
+            writer.enqueue(tick("offline", i));
+            writer.enqueue(tick("unknown", i));
+        }
+        // Drains whatever the flusher has not written yet
+        writer.stop();
+
+        Set<String> supplyKeys = redisTemplate.keys(DriverLocationBatchWriter.SURGE_SUPPLY_PREFIX + "*");
+        assertThat(supplyKeys).isNotEmpty();
+        assertThat(redisTemplate.opsForHyperLogLog().size(supplyKeys.toArray(String[]::new))).isEqualTo(1L);
+        assertThat(redisTemplate.opsForHash().keys(DriverService.DRIVER_SHARD_KEY))
+                .containsExactlyInAnyOrder("available", "busy", "offline", "unknown");
+    }
+
+    private static DriverLocationMessage tick(String driverId, int seq) {
+        return new DriverLocationMessage(driverId, LAT + seq * 0.0001, LNG, null, null,
+                Instant.parse("2026-01-02T03:04:05Z").plusSeconds(seq));
+    }
+}
@@ -0,0 +1,86 @@
+package se360.driver_service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import se360.driver_service.models.DriverLocationMessage;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class DriverLocationCoalescerTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-02T03:04:05Z");
+
+    private final DriverService driverService = mock(DriverService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DriverLocationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new DriverLocationCoalescer(driverService, meterRegistry);
+        // Flushed by hand
+        ReflectionTestUtils.setField(coalescer, "flushIntervalMs", 3_600_000L);
+        coalescer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.stop();
+    }
+
+    @Test
+    void invalidPositionDoesNotBlockOtherDriversInItsShard() {
+        assertThat(coalescer.submit(tick("d1", 10.7769, 106.7009))).isTrue();
+        assertThat(coalescer.submit(tick("d2", 91.0, 106.7009))).isFalse();
+        assertThat(coalescer.submit(tick("d3", Double.NaN, 106.7009))).isFalse();
+        assertThat(coalescer.submit(tick("d4", 10.7769, 180.5))).isFalse();
+        assertThat(coalescer.submit(tick("d5", 10.7770, 106.7010))).isTrue();
+
+        coalescer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DriverLocationMessage>> batch = ArgumentCaptor.forClass(List.class);
+        verify(driverService).handleStreamingLocations(batch.capture());
+        assertThat(batch.getValue()).extracting(DriverLocationMessage::driverId).containsExactlyInAnyOrder("d1", "d5");
+        assertThat(meterRegistry.get("driver.location.invalid").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void invalidTickDoesNotAdvanceTheDriversOrdering() {
+        coalescer.submit(new DriverLocationMessage("d1", 95.0, 106.7, null, null, NOW.plusSeconds(10)));
+
+        assertThat(coalescer.submit(tick("d1", 10.7769, 106.7009))).isTrue();
+    }
+
+    @Test
+    void outOfOrderTickIsDropped() {
+        coalescer.submit(tick("d1", 10.7769, 106.7009));
+
+        assertThat(coalescer.submit(new DriverLocationMessage("d1", 10.8, 106.7, null, null, NOW.minusSeconds(1))))
+                .isFalse();
+    }
+
+    @Test
+    void disconnectReleasesOrderingStateButKeepsPendingTick() {
+        coalescer.submit(tick("d1", 10.7769, 106.7009));
+
+        coalescer.disconnected("d1");
+
+        assertThat(ReflectionTestUtils.getField(coalescer, "lastAccepted")).asInstanceOf(MAP).isEmpty();
+        coalescer.flush();
+        verify(driverService).handleStreamingLocations(List.of(tick("d1", 10.7769, 106.7009)));
+    }
+
+    private static DriverLocationMessage tick(String driverId, double lat, double lng) {
+        return new DriverLocationMessage(driverId, lat, lng, null, null, NOW);
+    }
+}
@@ -0,0 +1,99 @@
+package se360.driver_service.services;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+import se360.driver_service.models.NearbyDriver;
+import se360.driver_service.models.VehicleType;
+
+import java.net.ServerSocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Status changes made through another instance reach Redis but not this
+ * instance's index until the next rebuild.
+ */
+class DriverSpatialIndexTest {
+
+    private static final double LAT = 10.7769;
+    private static final double LNG = 106.7009;
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private DriverSpatialIndex index;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        index = new DriverSpatialIndex(redisTemplate, new DriverGeoShards(redisTemplate));
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "cellSizeDeg", 0.01);
+        ReflectionTestUtils.setField(index, "verifyStatus", true);
+
+        for (String driverId : new String[] { "d1", "d2", "d3" }) {
+            redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, driverId, "ONLINE");
+            redisTemplate.opsForHash().put(DriverService.DRIVER_VEHICLE_KEY, driverId, VehicleType.BIKE.name());
+            index.markOnline(driverId, VehicleType.BIKE);
+        }
+        index.update("d1", LAT + 0.001, LNG);
+        index.update("d2", LAT + 0.002, LNG);
+        index.update("d3", LAT + 0.003, LNG);
+    }
+
+    @Test
+    void driverTakenOfflineElsewhereIsNotReturned() {
+        redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, "d2", "OFFLINE");
+
+        assertThat(index.findNearby(LAT, LNG, 3, 0, null))
+                .extracting(NearbyDriver::driverId).containsExactly("d1", "d3");
+    }
+
+    @Test
+    void vehicleSwitchMadeElsewhereIsHonoured() {
+        redisTemplate.opsForHash().put(DriverService.DRIVER_VEHICLE_KEY, "d1", VehicleType.CAR_4_SEAT.name());
+
+        assertThat(index.findNearby(LAT, LNG, 3, 2, VehicleType.BIKE))
+                .extracting(NearbyDriver::driverId).containsExactly("d2", "d3");
+        assertThat(index.findNearby(LAT, LNG, 3, 0, VehicleType.CAR_4_SEAT))
+                .extracting(NearbyDriver::driverId).containsExactly("d1");
+    }
+
+    @Test
+    void withoutVerificationTheIndexAnswersFromMemory() {
+        ReflectionTestUtils.setField(index, "verifyStatus", false);
+        redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, "d2", "OFFLINE");
+
+        assertThat(index.findNearby(LAT, LNG, 3, 0, null))
+                .extracting(NearbyDriver::driverId).containsExactly("d1", "d2", "d3");
+    }
+}
@@ -0,0 +1,234 @@
+package se360.driver_service.services;
+
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+import se360.driver_service.models.NearbyDriver;
+import se360.driver_service.models.VehicleType;
+
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the nearby-driver script against an embedded Redis and compares the
+ * number of commands sent over the wire with the old GEORADIUS + HGET-per-driver
+ * pattern.
+ */
+class NearbyDriverQueryTest {
+
+    private static final double LAT = 10.7769;
+    private static final double LNG = 106.7009;
+
+    private static RedisServer redisServer;
+    private static ClientResources clientResources;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    // Commands seen on the wire, by type
+    private static final Map<String, AtomicInteger> sent = new ConcurrentHashMap<>();
+
+    private final NearbyDriverQuery query = new NearbyDriverQuery(redisTemplate);
+    private final DriverGeoShards shards = new DriverGeoShards(redisTemplate);
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        clientResources = DefaultClientResources.builder()
+                .commandLatencyRecorder(new CountingRecorder())
+                .build();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", port),
+                LettuceClientConfiguration.builder().clientResources(clientResources).build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        clientResources.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void seed() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+
+        // 30 drivers spread north of the pickup, ~100 m apart; every third one is offline.
+        // Odd drivers have no declared vehicle type, even ones alternate BIKE / CAR_4_SEAT.
+        for (int i = 0; i < 30; i++) {
+            String driverId = "driver-" + i;
+            VehicleType type = i % 2 != 0 ? null : i % 4 == 0 ? VehicleType.BIKE : VehicleType.CAR_4_SEAT;
+            if (type != null) {
+                redisTemplate.opsForHash().put(DriverService.DRIVER_VEHICLE_KEY, driverId, type.name());
+            }
+            redisTemplate.opsForGeo().add(shards.keyFor(type, LAT + i * 0.0009, LNG),
+                    new Point(LNG, LAT + i * 0.0009), driverId);
+            redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, driverId, i % 3 == 0 ? "OFFLINE" : "ONLINE");
+        }
+        // Far away, must never be returned
+        redisTemplate.opsForGeo().add(DriverService.DRIVER_LOCATION_KEY, new Point(105.8342, 21.0278), "driver-hanoi");
+        redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, "driver-hanoi", "ONLINE");
+
+        // Load the script once so the EVALSHA fast path is what gets measured
+        query.find(List.of(DriverService.DRIVER_LOCATION_KEY), LAT, LNG, 1, 1);
+        sent.clear();
+    }
+
+    @Test
+    void returnsOnlyOnlineDriversNearestFirstAcrossShards() {
+        List<NearbyDriver> drivers = query.find(shards.keysFor(null, LAT, LNG, 3), LAT, LNG, 3, 0);
+
+        assertThat(drivers).hasSize(20);
+        assertThat(drivers).extracting(NearbyDriver::driverId)
+                .doesNotContain("driver-0", "driver-3", "driver-hanoi")
+                .startsWith("driver-1", "driver-2", "driver-4");
+        assertThat(drivers).extracting(NearbyDriver::distanceKm).isSorted();
+        assertThat(drivers.get(0).distanceKm()).isBetween(0.09, 0.11);
+    }
+
+    @Test
+    void appliesCountLimitAfterFiltering() {
+        List<NearbyDriver> drivers = query.find(shards.keysFor(null, LAT, LNG, 3), LAT, LNG, 3, 3);
+
+        assertThat(drivers).extracting(NearbyDriver::driverId)
+                .containsExactly("driver-1", "driver-2", "driver-4");
+    }
+
+    @Test
+    void ringSearchSkipsDriversAlreadyReturnedByInnerRing() {
+        List<String> keys = shards.keysFor(null, LAT, LNG, 2);
+        List<NearbyDriver> inner = query.find(keys, LAT, LNG, 0, 1, 0);
+        List<NearbyDriver> outer = query.find(keys, LAT, LNG, 1, 2, 0);
+
+        assertThat(inner).extracting(NearbyDriver::distanceKm).allMatch(d -> d <= 1);
+        assertThat(outer).extracting(NearbyDriver::distanceKm).allMatch(d -> d > 1 && d <= 2);
+        assertThat(outer).extracting(NearbyDriver::driverId)
+                .doesNotContainAnyElementsOf(inner.stream().map(NearbyDriver::driverId).toList());
+        assertThat(inner.size() + outer.size()).isEqualTo(query.find(keys, LAT, LNG, 2, 0).size());
+    }
+
+    @Test
+    void driverParkedAtThePickupIsReturnedFirst() {
+        redisTemplate.opsForGeo().add(DriverService.DRIVER_LOCATION_KEY, new Point(LNG, LAT), "driver-at-pickup");
+        redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, "driver-at-pickup", "ONLINE");
+        List<String> keys = shards.keysFor(null, LAT, LNG, 3);
+
+        assertThat(query.find(keys, LAT, LNG, 3, 0)).first()
+                .extracting(NearbyDriver::driverId).isEqualTo("driver-at-pickup");
+        assertThat(query.find(keys, LAT, LNG, 0, 1, 0)).extracting(NearbyDriver::driverId)
+                .startsWith("driver-at-pickup");
+    }
+
+    @Test
+    void vehicleTypeSearchOnlyTouchesMatchingAndUntypedShards() {
+        List<String> keys = shards.keysFor(VehicleType.BIKE, LAT, LNG, 3);
+        List<NearbyDriver> drivers = query.find(keys, LAT, LNG, 3, 0);
+
+        assertThat(keys).containsExactly("driver:locations", "driver:locations:BIKE");
+        assertThat(drivers).extracting(NearbyDriver::driverId)
+                .contains("driver-1", "driver-4", "driver-8")
+                .doesNotContain("driver-2", "driver-10");
+        assertThat(drivers).extracting(NearbyDriver::distanceKm).isSorted();
+    }
+
+    @Test
+    void driverInTwoShardsIsReturnedOnce() {
+        // driver-2 left behind in the untyped shard by a vehicle switch made through another instance
+        redisTemplate.opsForGeo().add(DriverService.DRIVER_LOCATION_KEY, new Point(LNG, LAT + 2 * 0.0009), "driver-2");
+
+        List<NearbyDriver> drivers = query.find(shards.keysFor(null, LAT, LNG, 3), LAT, LNG, 3, 3);
+
+        assertThat(drivers).extracting(NearbyDriver::driverId)
+                .containsExactly("driver-1", "driver-2", "driver-4");
+    }
+
+    @Test
+    void placementsAreReadFromRedisNotCachedPerInstance() {
+        redisTemplate.opsForHash().put(DriverService.DRIVER_SHARD_KEY, "driver-2", "driver:locations:CAR_4_SEAT");
+        assertThat(shards.placementsOf(List.of("driver-1", "driver-2")))
+                .isEqualTo(new DriverGeoShards.Placements(Map.of("driver-2", VehicleType.CAR_4_SEAT),
+                        Map.of("driver-2", "driver:locations:CAR_4_SEAT"),
+                        Map.of("driver-1", "ONLINE", "driver-2", "ONLINE")));
+
+        // Another instance switches driver-2 to a bike
+        redisTemplate.opsForHash().put(DriverService.DRIVER_VEHICLE_KEY, "driver-2", VehicleType.BIKE.name());
+
+        assertThat(shards.vehicleTypesOf(List.of("driver-1", "driver-2")))
+                .containsExactly(Map.entry("driver-2", VehicleType.BIKE));
+    }
+
+    @Test
+    void usesOneRoundTripWhereTheOldPatternUsedOnePerDriver() {
+        // Single unsharded key, as before partitioning, so both patterns see the same drivers
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        for (int i = 0; i < 30; i++) {
+            String driverId = "driver-" + i;
+            redisTemplate.opsForGeo().add(DriverService.DRIVER_LOCATION_KEY, new Point(LNG, LAT + i * 0.0009), driverId);
+            redisTemplate.opsForHash().put(DriverService.DRIVER_STATUS_KEY, driverId, i % 3 == 0 ? "OFFLINE" : "ONLINE");
+        }
+        sent.clear();
+
+        List<NearbyDriver> scripted = query.find(List.of(DriverService.DRIVER_LOCATION_KEY), LAT, LNG, 3, 0);
+        int scriptedRoundTrips = totalSent();
+        assertThat(sent).containsOnlyKeys("EVALSHA");
+        assertThat(scriptedRoundTrips).isEqualTo(1);
+
+        sent.clear();
+        GeoResults<RedisGeoCommands.GeoLocation<String>> results = redisTemplate.opsForGeo().radius(
+                DriverService.DRIVER_LOCATION_KEY,
+                new Circle(new Point(LNG, LAT), new Distance(3, Metrics.KILOMETERS)));
+        List<String> legacy = results.getContent().stream()
+                .map(res -> res.getContent().getName())
+                .filter(id -> "ONLINE".equals(redisTemplate.opsForHash().get(DriverService.DRIVER_STATUS_KEY, id)))
+                .toList();
+        int legacyRoundTrips = totalSent();
+
+        assertThat(legacy).containsExactlyInAnyOrderElementsOf(
+                scripted.stream().map(NearbyDriver::driverId).toList());
+        assertThat(legacyRoundTrips).isEqualTo(1 + 30);
+    }
+
+    private static int totalSent() {
+        return sent.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    private static class CountingRecorder implements CommandLatencyRecorder {
+        @Override
+        public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                long firstResponseLatency, long completionLatency) {
+            sent.computeIfAbsent(commandType.toString(), k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+}
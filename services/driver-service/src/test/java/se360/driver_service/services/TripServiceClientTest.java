@@ -0,0 +1,93 @@
+package se360.driver_service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class TripServiceClientTest {
+
+    private static final UUID TRIP_ID = UUID.randomUUID();
+    private static final UUID DRIVER_ID = UUID.randomUUID();
+    private static final String URL = "http://trip-service/trips/" + TRIP_ID + "/accept";
+
+    private MockRestServiceServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private TripServiceClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        });
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        meterRegistry = new SimpleMeterRegistry();
+
+        client = new TripServiceClient(restTemplate, meterRegistry);
+        ReflectionTestUtils.setField(client, "tripServiceUrl", "http://trip-service");
+        ReflectionTestUtils.setField(client, "failureRateThreshold", 50f);
+        ReflectionTestUtils.setField(client, "slowCallMs", 2000L);
+        ReflectionTestUtils.setField(client, "slidingWindowSize", 4);
+        ReflectionTestUtils.setField(client, "minimumCalls", 4);
+        ReflectionTestUtils.setField(client, "openDurationMs", 5000L);
+        client.init();
+    }
+
+    @Test
+    void passesTripServiceStatusThrough() {
+        server.expect(requestTo(URL)).andExpect(method(HttpMethod.PUT)).andRespond(withSuccess());
+        server.expect(requestTo(URL)).andRespond(withStatus(HttpStatus.CONFLICT).body("\"ALREADY_ASSIGNED\""));
+
+        assertThat(client.acceptTrip(TRIP_ID, DRIVER_ID).getStatusCode()).isEqualTo(HttpStatus.OK);
+        ResponseEntity<String> conflict = client.acceptTrip(TRIP_ID, DRIVER_ID);
+        assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(conflict.getBody()).isEqualTo("\"ALREADY_ASSIGNED\"");
+    }
+
+    @Test
+    void conflictsDoNotOpenTheBreaker() {
+        server.expect(ExpectedCount.times(6), requestTo(URL)).andRespond(withStatus(HttpStatus.CONFLICT));
+
+        for (int i = 0; i < 6; i++) {
+            assertThat(client.acceptTrip(TRIP_ID, DRIVER_ID).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        }
+        server.verify();
+    }
+
+    @Test
+    void failsFastWith503OnceServerErrorsOpenTheBreaker() {
+        server.expect(ExpectedCount.times(4), requestTo(URL)).andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        for (int i = 0; i < 4; i++) {
+            client.acceptTrip(TRIP_ID, DRIVER_ID);
+        }
+        ResponseEntity<String> rejected = client.acceptTrip(TRIP_ID, DRIVER_ID);
+
+        server.verify();
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.not.permitted.calls").counter().count())
+                .isEqualTo(1);
+    }
+}
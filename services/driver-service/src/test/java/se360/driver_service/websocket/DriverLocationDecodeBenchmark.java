@@ -0,0 +1,83 @@
+package se360.driver_service.websocket;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import se360.driver_service.models.DriverLocationMessage;
+
+/**
+ * JSON tick decoding: {@code ObjectMapper.readValue} (the previous text path)
+ * against {@link DriverLocationJsonDecoder}.
+ *
+ * Not run by the build. Run from the IDE via {@link #main}, or after
+ * {@code mvn test-compile}:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     se360.driver_service.websocket.DriverLocationDecodeBenchmark
+ * </pre>
+ *
+ * Add {@code -prof gc} (via {@code org.openjdk.jmh.Main}) to compare
+ * allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverLocationDecodeBenchmark {
+
+    private static final String DRIVER_ID = "5f0c7a52-1f7e-4c1b-9a57-6f0b1c2d3e4f";
+
+    private static final String FULL = "{\"driverId\":\"" + DRIVER_ID + "\",\"lat\":10.776923,\"lng\":106.700981,"
+            + "\"heading\":184.5,\"speed\":11.2,\"timestamp\":\"2026-01-02T03:04:05.678Z\"}";
+
+    private static final String MINIMAL = "{\"driverId\":\"" + DRIVER_ID + "\",\"lat\":10.776923,\"lng\":106.700981}";
+
+    @Param({ "full", "minimal" })
+    public String shape;
+
+    private String payload;
+    private ObjectMapper objectMapper;
+    private DriverLocationJsonDecoder decoder;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        decoder = new DriverLocationJsonDecoder(objectMapper.getFactory());
+        payload = "full".equals(shape) ? FULL : MINIMAL;
+    }
+
+    @Benchmark
+    public DriverLocationMessage objectMapper() throws Exception {
+        return objectMapper.readValue(payload, DriverLocationMessage.class);
+    }
+
+    @Benchmark
+    public DriverLocationMessage streamingDecoder() throws Exception {
+        return decoder.decode(payload, DRIVER_ID);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(DriverLocationDecodeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,55 @@
+package se360.driver_service.websocket;
+
+import org.junit.jupiter.api.Test;
+import se360.driver_service.models.DriverLocationMessage;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DriverLocationFrameTest {
+
+    @Test
+    void roundTripsEveryField() {
+        Instant ts = Instant.ofEpochMilli(1_760_000_000_123L);
+        ByteBuffer frame = DriverLocationFrame.encode(10.7769, 106.7009, 90.5, 12.25, ts);
+
+        DriverLocationMessage msg = DriverLocationFrame.decode("driver-1", frame);
+
+        assertThat(frame.remaining()).isEqualTo(DriverLocationFrame.SIZE);
+        assertThat(msg).isEqualTo(new DriverLocationMessage("driver-1", 10.7769, 106.7009, 90.5, 12.25, ts));
+    }
+
+    @Test
+    void unknownOptionalFieldsDecodeAsNull() {
+        DriverLocationMessage msg = DriverLocationFrame.decode("driver-1",
+                DriverLocationFrame.encode(10.7769, 106.7009, null, null, null));
+
+        assertThat(msg.heading()).isNull();
+        assertThat(msg.speed()).isNull();
+        assertThat(msg.timestamp()).isNull();
+    }
+
+    @Test
+    void decodesFromNonZeroBufferPosition() {
+        ByteBuffer wrapped = ByteBuffer.allocate(DriverLocationFrame.SIZE + 5);
+        wrapped.position(5);
+        wrapped.put(DriverLocationFrame.encode(1, 2, 3.0, 4.0, null));
+        wrapped.position(5);
+
+        assertThat(DriverLocationFrame.decode("d", wrapped).lng()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsWrongSizeOrVersion() {
+        assertThatThrownBy(() -> DriverLocationFrame.decode("d", ByteBuffer.allocate(10)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        ByteBuffer badVersion = DriverLocationFrame.encode(1, 2, null, null, null);
+        badVersion.put(0, (byte) 9);
+        assertThatThrownBy(() -> DriverLocationFrame.decode("d", badVersion))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
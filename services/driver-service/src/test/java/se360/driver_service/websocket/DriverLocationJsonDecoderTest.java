@@ -0,0 +1,91 @@
+package se360.driver_service.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import se360.driver_service.models.DriverLocationMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The streaming decoder must accept exactly what the databind path with the
+ * application's ObjectMapper settings accepts.
+ */
+class DriverLocationJsonDecoderTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final DriverLocationJsonDecoder decoder = new DriverLocationJsonDecoder(objectMapper.getFactory());
+
+    @Test
+    void matchesObjectMapperOnTypicalTicks() throws Exception {
+        String[] payloads = {
+                "{\"driverId\":\"d-1\",\"lat\":10.7769,\"lng\":106.7009,\"heading\":90.5,\"speed\":12.25,"
+                        + "\"timestamp\":\"2026-01-02T03:04:05.678Z\"}",
+                "{\"driverId\":\"d-1\",\"lat\":10.7769,\"lng\":106.7009}",
+                "{\"driverId\":\"d-1\",\"lat\":10,\"lng\":106,\"heading\":null,\"speed\":0,\"timestamp\":1767323045}",
+                "{\"lng\":106.7,\"extra\":{\"nested\":[1,2,3]},\"lat\":10.7,\"driverId\":\"d-1\"}",
+                "{\"driverId\":\"d-1\",\"lat\":null,\"lng\":1.5,\"timestamp\":\"2026-01-02T10:04:05+07:00\"}",
+        };
+        for (String payload : payloads) {
+            assertThat(decoder.decode(payload, "d-1"))
+                    .as(payload)
+                    .isEqualTo(objectMapper.readValue(payload, DriverLocationMessage.class));
+        }
+    }
+
+    @Test
+    void splitsFractionalEpochSecondsExactly() throws Exception {
+        String payload = "{\"driverId\":\"d-1\",\"lat\":1,\"lng\":2,\"timestamp\":1700000000.123}";
+
+        DriverLocationMessage decoded = decoder.decode(payload, "d-1");
+
+        assertThat(decoded.timestamp()).isEqualTo(java.time.Instant.ofEpochSecond(1_700_000_000L, 123_000_000L));
+        assertThat(decoded).isEqualTo(objectMapper.readValue(payload, DriverLocationMessage.class));
+    }
+
+    @Test
+    void reusesAuthenticatedIdInstanceWhenItMatches() throws Exception {
+        String authenticated = new String("d-1");
+
+        DriverLocationMessage same = decoder.decode("{\"driverId\":\"d-1\",\"lat\":1,\"lng\":2}", authenticated);
+        DriverLocationMessage other = decoder.decode("{\"driverId\":\"d-2\",\"lat\":1,\"lng\":2}", authenticated);
+
+        assertThat(same.driverId()).isSameAs(authenticated);
+        assertThat(other.driverId()).isEqualTo("d-2");
+    }
+
+    @Test
+    void growsBufferForLargePayloads() throws Exception {
+        String padding = "x".repeat(5000);
+        String payload = "{\"driverId\":\"d-1\",\"pad\":\"" + padding + "\",\"lat\":1,\"lng\":2}";
+
+        assertThat(decoder.decode(payload, "d-1").lng()).isEqualTo(2);
+        assertThat(decoder.decode("{\"driverId\":\"d-1\",\"lat\":3,\"lng\":4}", "d-1").lat()).isEqualTo(3);
+    }
+
+    @Test
+    void utcFastPathAgreesWithInstantParse() {
+        String[] stamps = {
+                "2026-01-02T03:04:05Z", "2026-01-02T03:04:05.6Z", "2026-01-02T03:04:05.678Z",
+                "2024-02-29T23:59:59.123456789Z", "1970-01-01T00:00:00Z", "1969-12-31T23:59:59.999Z",
+                "2000-03-01T00:00:00Z", "2100-12-31T12:00:00Z",
+        };
+        for (String stamp : stamps) {
+            assertThat(DriverLocationJsonDecoder.parseUtcInstant(stamp.toCharArray(), 0, stamp.length()))
+                    .as(stamp)
+                    .isEqualTo(java.time.Instant.parse(stamp));
+        }
+
+        for (String other : new String[] { "2026-02-30T00:00:00Z", "2026-01-02T03:04:05+07:00", "2026-01-02" }) {
+            assertThat(DriverLocationJsonDecoder.parseUtcInstant(other.toCharArray(), 0, other.length()))
+                    .as(other)
+                    .isNull();
+        }
+    }
+
+    @Test
+    void rejectsNonObjectPayloads() {
+        assertThatThrownBy(() -> decoder.decode("[1,2]", "d-1")).isInstanceOf(java.io.IOException.class);
+    }
+}
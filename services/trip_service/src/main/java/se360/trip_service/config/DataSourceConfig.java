@@ -22,22 +22,22 @@ public class DataSourceConfig {
         return DataSourceBuilder.create().type(HikariDataSource.class).build();
     }
 
+    // Each replica gets its own Hikari pool, built and owned by ReplicaPool
     @Bean
-    @ConfigurationProperties(prefix = "spring.datasource.replica")
-    public DataSource replicaDataSource() {
-        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    @ConfigurationProperties(prefix = "trip.datasource")
+    public ReplicaProperties replicaProperties() {
+        return new ReplicaProperties();
     }
 
     @Bean
     public DataSource routingDataSource(
             @Qualifier("primaryDataSource") DataSource primaryDataSource,
-            @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+            ReplicaPool replicaPool) {
 
-        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource();
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource(replicaPool);
 
-        Map<Object, Object> targetDataSources = new HashMap<>();
-        targetDataSources.put("primary", primaryDataSource);
-        targetDataSources.put("replica", replicaDataSource);
+        Map<Object, Object> targetDataSources = new HashMap<>(replicaPool.dataSources());
+        targetDataSources.put(ReplicationRoutingDataSource.PRIMARY, primaryDataSource);
 
         routingDataSource.setTargetDataSources(targetDataSources);
         routingDataSource.setDefaultTargetDataSource(primaryDataSource);
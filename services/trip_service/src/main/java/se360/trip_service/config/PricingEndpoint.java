@@ -0,0 +1,51 @@
+package se360.trip_service.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import se360.trip_service.service.PricingRules;
+import se360.trip_service.service.PricingSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/pricing} shows the pricing version in force,
+ * {@code POST /actuator/pricing} re-reads the pricing file.
+ */
+@Component
+@Endpoint(id = "pricing")
+@RequiredArgsConstructor
+public class PricingEndpoint {
+
+    private final PricingRules pricingRules;
+
+    @ReadOperation
+    public Map<String, Object> pricing() {
+        return describe(pricingRules.current());
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload() {
+        try {
+            Map<String, Object> result = describe(pricingRules.reload());
+            result.put("reloaded", true);
+            return result;
+        } catch (Exception e) {
+            Map<String, Object> result = describe(pricingRules.current());
+            result.put("reloaded", false);
+            result.put("error", e.getMessage());
+            return result;
+        }
+    }
+
+    private static Map<String, Object> describe(PricingSnapshot snapshot) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("version", snapshot.version());
+        description.put("loadedAt", snapshot.loadedAt().toString());
+        description.put("surgeEnabled", snapshot.surgeEnabled());
+        return description;
+    }
+}
@@ -0,0 +1,44 @@
+package se360.trip_service.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Minimum primary WAL position the current thread's reads must observe.
+ *
+ * Set around a read with {@link #atLeast}; {@link ReplicationRoutingDataSource}
+ * consults it when the read-only transaction fetches its connection, which
+ * {@code LazyConnectionDataSourceProxy} delays until the first statement.
+ */
+public final class ReadConsistency {
+
+    private static final ThreadLocal<Long> MIN_LSN = new ThreadLocal<>();
+
+    private ReadConsistency() {
+    }
+
+    /**
+     * Run a read that has to see everything committed up to {@code lsn}.
+     * Nested scopes keep the highest requirement.
+     */
+    public static <T> T atLeast(long lsn, Supplier<T> read) {
+        Long previous = MIN_LSN.get();
+        MIN_LSN.set(previous != null ? Math.max(previous, lsn) : lsn);
+        try {
+            return read.get();
+        } finally {
+            if (previous != null) {
+                MIN_LSN.set(previous);
+            } else {
+                MIN_LSN.remove();
+            }
+        }
+    }
+
+    /**
+     * @return 0 outside {@link #atLeast}, i.e. any replica position will do
+     */
+    static long requiredLsn() {
+        Long lsn = MIN_LSN.get();
+        return lsn != null ? lsn : 0L;
+    }
+}
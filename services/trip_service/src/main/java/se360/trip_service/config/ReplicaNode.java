@@ -0,0 +1,59 @@
+package se360.trip_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * One read replica: its pool and what the last health checks found. The
+ * counters are only touched by the replica's poll task.
+ */
+final class ReplicaNode {
+
+    final String name;
+    final int weight;
+    final DataSource dataSource;
+    final JdbcTemplate jdbc;
+    final Counter reads;
+
+    volatile long replayedLsn = -1;
+    volatile long polledAtNanos;
+    volatile boolean admitted;
+
+    int consecutiveFailures;
+    int consecutiveSuccesses;
+
+    ReplicaNode(String name, int weight, DataSource dataSource, Counter reads) {
+        this.name = name;
+        this.weight = weight;
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setQueryTimeout(1);
+        this.reads = reads;
+    }
+
+    /**
+     * Connections currently borrowed from the replica's pool; 0 until the
+     * pool has started or when the data source is not a Hikari pool.
+     */
+    int outstanding() {
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        }
+        return 0;
+    }
+
+    // Idle connections are dropped now, borrowed ones when they are returned
+    void evictConnections() {
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool != null) {
+                pool.softEvictConnections();
+            }
+        }
+    }
+}
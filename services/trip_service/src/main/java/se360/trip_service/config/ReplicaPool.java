@@ -0,0 +1,295 @@
+package se360.trip_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The read replicas ({@code trip.datasource.replicas}), each with its own
+ * Hikari pool, and the choice of replica for each read-only connection.
+ *
+ * Every replica's replay position is polled every {@code lsn-poll-ms} on its
+ * own background thread, so a hanging replica cannot hold up the others. The
+ * poll doubles as health check: a replica leaves the rotation after
+ * {@code failure-threshold} failed polls in a row and is admitted, at startup
+ * too, after {@code recovery-threshold} successful ones.
+ *
+ * A read goes to an admitted replica whose last successful poll is younger
+ * than {@code max-staleness-ms} and has reached the LSN the read requires
+ * ({@link ReadConsistency}), picked by the configured {@code balancing};
+ * when there is none it goes to the primary.
+ *
+ * Exported per replica: {@code hikaricp.connections.acquire} (connection
+ * wait) and {@code hikaricp.connections.usage} (time a read transaction holds
+ * its connection) tagged {@code pool=<name>}, plus
+ * {@code trip.datasource.replica.lag.bytes} and
+ * {@code trip.datasource.replica.admitted} tagged {@code replica=<name>}.
+ * {@code trip.datasource.reads{target}} counts read-only connections by
+ * replica name or {@code primary}.
+ */
+@Slf4j
+@Component
+public class ReplicaPool {
+
+    // LSNs as byte offsets; a server that is not in recovery reports its own WAL end
+    static final String REPLAY_LSN_SQL = "SELECT pg_wal_lsn_diff(CASE WHEN pg_is_in_recovery()"
+            + " THEN pg_last_wal_replay_lsn() ELSE pg_current_wal_lsn() END, '0/0')::bigint";
+    static final String PRIMARY_LSN_SQL = "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')::bigint";
+
+    private final JdbcTemplate primary;
+    private final ReplicaProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final List<ReplicaNode> nodes;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile long primaryLsn = -1;
+
+    private ScheduledExecutorService scheduler;
+    private Counter primaryReads;
+
+    @Autowired
+    public ReplicaPool(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                       ReplicaProperties properties,
+                       MeterRegistry meterRegistry) {
+        this(primaryDataSource, properties, meterRegistry, replica -> createPool(replica, meterRegistry));
+    }
+
+    ReplicaPool(DataSource primaryDataSource, ReplicaProperties properties, MeterRegistry meterRegistry,
+                Function<ReplicaProperties.Replica, DataSource> pools) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        List<ReplicaNode> created = new ArrayList<>();
+        Set<String> names = new HashSet<>(Set.of(ReplicationRoutingDataSource.PRIMARY));
+        for (ReplicaProperties.Replica replica : properties.getReplicas()) {
+            if (replica.getName() == null || replica.getName().isBlank()) {
+                replica.setName("replica-" + created.size());
+            }
+            if (!names.add(replica.getName())) {
+                throw new IllegalStateException("Duplicate replica name: " + replica.getName());
+            }
+            if (replica.getWeight() < 1) {
+                throw new IllegalStateException("Replica " + replica.getName() + " needs a weight of at least 1");
+            }
+            Counter reads = readsCounter(replica.getName());
+            created.add(new ReplicaNode(replica.getName(), replica.getWeight(), pools.apply(replica), reads));
+        }
+        this.nodes = List.copyOf(created);
+    }
+
+    private static DataSource createPool(ReplicaProperties.Replica replica, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(replica.getName());
+        pool.setJdbcUrl(replica.getJdbcUrl());
+        pool.setUsername(replica.getUsername());
+        pool.setPassword(replica.getPassword());
+        pool.setDriverClassName(replica.getDriverClassName());
+        pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+        pool.setConnectionTimeout(replica.getConnectionTimeout());
+        pool.setReadOnly(true);
+        pool.setMetricRegistry(meterRegistry);
+        return pool;
+    }
+
+    private Counter readsCounter(String target) {
+        return Counter.builder("trip.datasource.reads")
+                .description("Read-only connections by the server they were routed to")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        this.primaryReads = readsCounter(ReplicationRoutingDataSource.PRIMARY);
+        this.scheduler = Executors.newScheduledThreadPool(nodes.size() + 1,
+                Thread.ofPlatform().name("replica-health-", 0).daemon(true).factory());
+
+        long pollMs = properties.getLsnPollMs();
+        for (ReplicaNode node : nodes) {
+            Gauge.builder("trip.datasource.replica.lag.bytes", node, n -> n.replayedLsn < 0 || primaryLsn < 0
+                            ? -1 : Math.max(0, primaryLsn - n.replayedLsn))
+                    .description("WAL the replica had not replayed at the last poll, -1 if unknown")
+                    .baseUnit("bytes")
+                    .tag("replica", node.name)
+                    .register(meterRegistry);
+            Gauge.builder("trip.datasource.replica.admitted", node, n -> n.admitted ? 1 : 0)
+                    .description("1 while the replica is in the read rotation")
+                    .tag("replica", node.name)
+                    .register(meterRegistry);
+            scheduler.scheduleWithFixedDelay(() -> poll(node), pollMs, pollMs, TimeUnit.MILLISECONDS);
+        }
+        scheduler.scheduleWithFixedDelay(this::pollPrimary, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        for (ReplicaNode node : nodes) {
+            if (node.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Could not close the pool of replica {}", node.name, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replica pools by name, as routing targets.
+     */
+    Map<String, DataSource> dataSources() {
+        Map<String, DataSource> targets = new LinkedHashMap<>();
+        for (ReplicaNode node : nodes) {
+            targets.put(node.name, node.dataSource);
+        }
+        return targets;
+    }
+
+    void poll(ReplicaNode node) {
+        Long replayed = null;
+        try {
+            replayed = node.jdbc.queryForObject(REPLAY_LSN_SQL, Long.class);
+        } catch (Exception e) {
+            log.debug("Health check of replica {} failed", node.name, e);
+        }
+
+        if (replayed != null) {
+            node.replayedLsn = replayed;
+            node.polledAtNanos = System.nanoTime();
+            node.consecutiveFailures = 0;
+            if (!node.admitted && ++node.consecutiveSuccesses >= properties.getRecoveryThreshold()) {
+                node.admitted = true;
+                log.info("Replica {} admitted to the read rotation", node.name);
+            }
+        } else {
+            node.consecutiveSuccesses = 0;
+            if (node.admitted && ++node.consecutiveFailures >= properties.getFailureThreshold()) {
+                node.admitted = false;
+                node.evictConnections();
+                log.warn("Replica {} removed from the read rotation after {} failed health checks",
+                        node.name, node.consecutiveFailures);
+            }
+        }
+    }
+
+    private void pollPrimary() {
+        try {
+            Long current = primary.queryForObject(PRIMARY_LSN_SQL, Long.class);
+            if (current != null) {
+                this.primaryLsn = current;
+            }
+        } catch (Exception e) {
+            log.debug("Could not read the primary's WAL position", e);
+        }
+    }
+
+    /**
+     * The primary's WAL end right now. Called after a commit, it is at or past
+     * that commit's record.
+     *
+     * @param jdbc operations on the caller's own connection to the primary, so
+     *             a caller that still holds one does not borrow a second
+     */
+    public static long currentPrimaryLsn(JdbcOperations jdbc) {
+        Long lsn = jdbc.queryForObject(PRIMARY_LSN_SQL, Long.class);
+        return lsn != null ? lsn : 0L;
+    }
+
+    /**
+     * @return the lookup key for a read-only connection that must see
+     *         {@code requiredLsn}: a replica name, or the primary
+     */
+    String route(long requiredLsn) {
+        long now = System.nanoTime();
+        ReplicaNode chosen = switch (properties.getBalancing()) {
+            case WEIGHTED_ROUND_ROBIN -> weightedRoundRobin(requiredLsn, now);
+            case LEAST_OUTSTANDING -> leastOutstanding(requiredLsn, now);
+        };
+        if (chosen == null) {
+            primaryReads.increment();
+            return ReplicationRoutingDataSource.PRIMARY;
+        }
+        chosen.reads.increment();
+        return chosen.name;
+    }
+
+    private boolean canServe(ReplicaNode node, long requiredLsn, long now) {
+        long replayed = node.replayedLsn;
+        return node.admitted
+                && replayed >= requiredLsn
+                && now - node.polledAtNanos <= TimeUnit.MILLISECONDS.toNanos(properties.getMaxStalenessMs());
+    }
+
+    private ReplicaNode weightedRoundRobin(long requiredLsn, long now) {
+        int totalWeight = 0;
+        for (ReplicaNode node : nodes) {
+            if (canServe(node, requiredLsn, now)) {
+                totalWeight += node.weight;
+            }
+        }
+        if (totalWeight == 0) {
+            return null;
+        }
+        long slot = Math.floorMod(sequence.getAndIncrement(), totalWeight);
+        ReplicaNode last = null;
+        for (ReplicaNode node : nodes) {
+            if (canServe(node, requiredLsn, now)) {
+                last = node;
+                slot -= node.weight;
+                if (slot < 0) {
+                    return node;
+                }
+            }
+        }
+        // A replica dropped out between the two passes
+        return last;
+    }
+
+    private ReplicaNode leastOutstanding(long requiredLsn, long now) {
+        int size = nodes.size();
+        if (size == 0) {
+            return null;
+        }
+        // Rotating start point, so idle replicas share ties instead of the first one taking them all
+        int start = (int) Math.floorMod(sequence.getAndIncrement(), size);
+        ReplicaNode best = null;
+        long bestLoad = 0;
+        for (int i = 0; i < size; i++) {
+            ReplicaNode node = nodes.get((start + i) % size);
+            if (!canServe(node, requiredLsn, now)) {
+                continue;
+            }
+            // (outstanding + 1) / weight, compared without division
+            long load = node.outstanding() + 1L;
+            if (best == null || load * best.weight < bestLoad * node.weight) {
+                best = node;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,48 @@
+package se360.trip_service.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas and how reads are spread over them ({@code trip.datasource.*}).
+ */
+@Data
+public class ReplicaProperties {
+
+    public enum Balancing {
+        /** Each replica gets a share of reads proportional to its weight */
+        WEIGHTED_ROUND_ROBIN,
+        /** The replica with the fewest borrowed connections per unit of weight */
+        LEAST_OUTSTANDING
+    }
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    private Balancing balancing = Balancing.LEAST_OUTSTANDING;
+
+    /** How often each replica's replay position is read; the read doubles as health check */
+    private long lsnPollMs = 100;
+
+    /** A replica whose last successful poll is older than this gets no reads */
+    private long maxStalenessMs = 1000;
+
+    /** Consecutive failed polls before a replica is removed from rotation */
+    private int failureThreshold = 3;
+
+    /** Consecutive successful polls before a replica is (re)admitted */
+    private int recoveryThreshold = 3;
+
+    @Data
+    public static class Replica {
+        private String name;
+        private String jdbcUrl;
+        private String username;
+        private String password;
+        private String driverClassName = "org.postgresql.Driver";
+        private int weight = 1;
+        private int maximumPoolSize = 20;
+        private long connectionTimeout = 3000;
+    }
+}
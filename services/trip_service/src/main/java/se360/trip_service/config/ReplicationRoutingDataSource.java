@@ -3,10 +3,26 @@ package se360.trip_service.config;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Read-write transactions go to the primary. Read-only ones go to one of the
+ * replicas that is healthy and has replayed what the read requires, see
+ * {@link ReplicaPool}.
+ */
 public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
 
+    static final String PRIMARY = "primary";
+
+    private final ReplicaPool replicaPool;
+
+    public ReplicationRoutingDataSource(ReplicaPool replicaPool) {
+        this.replicaPool = replicaPool;
+    }
+
     @Override
     protected Object determineCurrentLookupKey() {
-        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? "replica" : "primary";
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return replicaPool.route(ReadConsistency.requiredLsn());
     }
 }
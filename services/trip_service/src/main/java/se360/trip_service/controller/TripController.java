@@ -1,22 +1,26 @@
 package se360.trip_service.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import se360.trip_service.model.dtos.AcceptTripRequest;
 import se360.trip_service.model.dtos.CreateTripRequest;
+import se360.trip_service.model.dtos.TripPageResponse;
 import se360.trip_service.model.dtos.TripResponse;
 import se360.trip_service.model.dtos.EstimateFareResponse;
 import se360.trip_service.model.dtos.EstimateFareRequest;
 import se360.trip_service.model.dtos.RateTripRequest;
 import se360.trip_service.model.dtos.TripRatingResponse;
 import se360.trip_service.model.enums.AcceptResult;
+import se360.trip_service.model.enums.TripStatus;
 import se360.trip_service.model.enums.VehicleType;
 import se360.trip_service.service.TripService;
+import se360.trip_service.service.TripStateCache;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @RestController
@@ -25,6 +29,7 @@ import java.util.UUID;
 public class TripController {
 
     private final TripService tripService;
+    private final TripStateCache tripStateCache;
 
     @PostMapping("/estimate")
     public ResponseEntity<EstimateFareResponse> estimateFare(@RequestBody EstimateFareRequest request) {
@@ -38,10 +43,17 @@ public class TripController {
         return ResponseEntity.ok(created);
     }
 
+    // Newest first, one page at a time; follow nextCursor for the next page
     @GetMapping
-    public ResponseEntity<List<TripResponse>> getAllTrips() {
-        List<TripResponse> trips = tripService.getAllTrips();
-        return ResponseEntity.ok(trips);
+    public ResponseEntity<TripPageResponse> listTrips(
+            @RequestParam(required = false) UUID passengerId,
+            @RequestParam(required = false) UUID driverId,
+            @RequestParam(required = false) TripStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(tripService.listTrips(passengerId, driverId, status, from, to, cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -100,6 +112,11 @@ public class TripController {
     public ResponseEntity<AcceptResult> acceptTrip(
             @PathVariable UUID tripId,
             @RequestBody AcceptTripRequest request) {
+        // Fast path: losing accepts on assigned/cancelled trips never open a transaction
+        if (tripStateCache.isClosedForAccept(tripId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(AcceptResult.ALREADY_ASSIGNED);
+        }
+
         AcceptResult result = tripService.acceptTripWithLock(tripId, request.getDriverId());
 
         return switch (result) {
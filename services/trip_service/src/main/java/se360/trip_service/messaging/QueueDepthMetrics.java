@@ -0,0 +1,78 @@
+package se360.trip_service.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Depth and consumer count of the queues this service consumes, exported as
+ * {@code rabbitmq.queue.depth} and {@code rabbitmq.queue.consumers}.
+ *
+ * The broker is asked every {@code refresh-ms} on a background thread, so a
+ * metrics scrape never waits on RabbitMQ. A gauge reads -1 until the first
+ * successful refresh.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueueDepthMetrics {
+
+    private static final List<String> QUEUES = List.of(RabbitMQConfiguration.ASSIGNED_QUEUE);
+
+    private final AmqpAdmin amqpAdmin;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${messaging.queue-depth.refresh-ms:5000}")
+    private long refreshMs;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("queue-depth-metrics").daemon(true).factory());
+        for (String queue : QUEUES) {
+            AtomicLong depth = new AtomicLong(-1);
+            AtomicLong consumers = new AtomicLong(-1);
+            Gauge.builder("rabbitmq.queue.depth", depth, AtomicLong::get)
+                    .description("Messages ready in the queue")
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+            Gauge.builder("rabbitmq.queue.consumers", consumers, AtomicLong::get)
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+            scheduler.scheduleWithFixedDelay(() -> refresh(queue, depth, consumers), 0, refreshMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void refresh(String queue, AtomicLong depth, AtomicLong consumers) {
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(queue);
+            if (info != null) {
+                depth.set(info.getMessageCount());
+                consumers.set(info.getConsumerCount());
+            }
+        } catch (Exception e) {
+            log.debug("Could not read depth of queue {}", queue, e);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package se360.trip_service.messaging;
 
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.amqp.core.Queue;
@@ -22,6 +25,11 @@ public class RabbitMQConfiguration {
     public static final String ASSIGNED_QUEUE = "trip.assigned.queue";
     public static final String ASSIGNED_ROUTING = "trip.assigned";
 
+    public static final String STARTED_ROUTING = "trip.started";
+    public static final String COMPLETED_ROUTING = "trip.completed";
+    public static final String CANCELLED_ROUTING = "trip.cancelled";
+    public static final String CHANGED_ROUTING = "trip.changed";
+
     @Bean
     public TopicExchange exchange() {
         return new TopicExchange(EXCHANGE, true, false);
@@ -52,19 +60,77 @@ public class RabbitMQConfiguration {
                 .with(ASSIGNED_ROUTING);
     }
 
+    // Every trip-service instance gets its own copy of the lifecycle events so it can
+    // drop the trip from its response cache, whichever instance made the change.
+    // Only events relayed from our outbox are bound: driver-service's trip.assigned is
+    // sent before our UPDATE commits, so assignments are announced as trip.changed instead
+    @Bean
+    public Queue tripChangedQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding bindTripChangedOnChanged(Queue tripChangedQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(tripChangedQueue).to(exchange).with(CHANGED_ROUTING);
+    }
+
+    @Bean
+    public Binding bindTripChangedOnStarted(Queue tripChangedQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(tripChangedQueue).to(exchange).with(STARTED_ROUTING);
+    }
+
+    @Bean
+    public Binding bindTripChangedOnCompleted(Queue tripChangedQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(tripChangedQueue).to(exchange).with(COMPLETED_ROUTING);
+    }
+
+    @Bean
+    public Binding bindTripChangedOnCancelled(Queue tripChangedQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(tripChangedQueue).to(exchange).with(CANCELLED_ROUTING);
+    }
+
     // ========== SHARED MESSAGE CONVERTER ==========
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
     }
 
+    // The configurer applies spring.rabbitmq.listener.simple.* and, when
+    // spring.threads.virtual.enabled is set, the virtual-thread task executor
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
             ConnectionFactory connectionFactory) {
 
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
-        factory.setConnectionFactory(connectionFactory);
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        return factory;
+    }
+
+    // trip.assigned is consumed in batches: up to batch-size messages, or whatever
+    // arrived within batch-receive-timeout-ms, are handed to the listener as one list
+    @Bean
+    public SimpleRabbitListenerContainerFactory tripAssignedContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${trip.messaging.assigned.concurrency:1}") int concurrency,
+            @Value("${trip.messaging.assigned.max-concurrency:4}") int maxConcurrency,
+            @Value("${trip.messaging.assigned.prefetch:250}") int prefetch,
+            @Value("${trip.messaging.assigned.batch-size:50}") int batchSize,
+            @Value("${trip.messaging.assigned.batch-receive-timeout-ms:20}") long batchReceiveTimeoutMs) {
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
         factory.setMessageConverter(jsonMessageConverter());
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        // Prefetch has to cover a whole batch or the consumer waits out the receive timeout
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeoutMs);
         return factory;
     }
 }
@@ -0,0 +1,18 @@
+package se360.trip_service.messaging.events;
+
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Any trip lifecycle event that changes what {@code GET /trips/{id}} returns
+ * (trip.changed, trip.started, trip.completed, trip.cancelled), all relayed
+ * from the outbox after the change commits. Only the trip id is read.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TripChangedEvent {
+    private UUID tripId;
+}
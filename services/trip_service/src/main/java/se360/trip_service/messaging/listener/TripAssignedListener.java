@@ -1,44 +1,113 @@
 package se360.trip_service.messaging.listener;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se360.trip_service.messaging.MessageDeduplicator;
 import se360.trip_service.messaging.RabbitMQConfiguration;
 import se360.trip_service.messaging.events.TripAssignedEvent;
-import se360.trip_service.model.entities.Trip;
+import se360.trip_service.messaging.events.TripChangedEvent;
+import se360.trip_service.messaging.publisher.TripEventPublisher;
 import se360.trip_service.model.enums.TripStatus;
 import se360.trip_service.repository.TripRepository;
+import se360.trip_service.service.TripResponseCache;
+import se360.trip_service.service.TripStateCache;
+import se360.trip_service.service.WrittenLsnStore;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
 public class TripAssignedListener {
 
+    private static final String CONSUMER = "trip-service.trip-assigned";
+
     private final TripRepository tripRepository;
+    private final TripStateCache tripStateCache;
+    private final TripResponseCache tripResponseCache;
+    private final WrittenLsnStore writtenLsnStore;
+    private final MessageDeduplicator deduplicator;
+    private final TripEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
 
-    @RabbitListener(queues = RabbitMQConfiguration.ASSIGNED_QUEUE)
-    public void handleTripAssigned(TripAssignedEvent event) {
-        Optional<Trip> optionalTrip = tripRepository.findById(event.getTripId());
+    private TransactionTemplate transactionTemplate;
+    private Counter consumed;
+    private Counter duplicates;
 
-        if (optionalTrip.isEmpty()) {
+    @PostConstruct
+    void init() {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.consumed = Counter.builder("messaging.consumed")
+                .description("Messages handled by the listener")
+                .tag("queue", RabbitMQConfiguration.ASSIGNED_QUEUE)
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("messaging.duplicates")
+                .description("Redelivered messages skipped by the dedup store")
+                .tag("queue", RabbitMQConfiguration.ASSIGNED_QUEUE)
+                .register(meterRegistry);
+    }
 
-            return;
+    // A whole batch is applied with one UPDATE; trips already past SEARCHING are skipped by the statement
+    @RabbitListener(queues = RabbitMQConfiguration.ASSIGNED_QUEUE, containerFactory = "tripAssignedContainerFactory")
+    public void handleTripAssigned(List<Message<TripAssignedEvent>> messages) {
+        List<String> messageIds = new ArrayList<>(messages.size());
+        for (Message<TripAssignedEvent> message : messages) {
+            String messageId = message.getHeaders().get(AmqpHeaders.MESSAGE_ID, String.class);
+            if (messageId != null) {
+                messageIds.add(messageId);
+            }
         }
+        Set<String> unseen = deduplicator.unseen(CONSUMER, messageIds);
 
-        Trip trip = optionalTrip.get();
-
-
-        if (trip.getTripStatus() == TripStatus.ASSIGNED) {
-            return;
+        // First assignment per trip wins, as it would have one message at a time
+        Map<UUID, UUID> driverByTrip = new LinkedHashMap<>();
+        for (Message<TripAssignedEvent> message : messages) {
+            String messageId = message.getHeaders().get(AmqpHeaders.MESSAGE_ID, String.class);
+            if (messageId != null && !unseen.contains(messageId)) {
+                duplicates.increment();
+                continue;
+            }
+            TripAssignedEvent event = message.getPayload();
+            if (event.getTripId() != null && event.getDriverId() != null) {
+                driverByTrip.putIfAbsent(event.getTripId(), event.getDriverId());
+            }
         }
 
-        trip.setDriverId(event.getDriverId());
-        trip.setTripStatus(TripStatus.ASSIGNED);
-        trip.setAcceptedAt(LocalDateTime.now());
-        trip.setUpdatedAt(LocalDateTime.now());
-
-        tripRepository.save(trip);
+        if (!driverByTrip.isEmpty()) {
+            // trip.changed is appended in the UPDATE's transaction, so other instances drop their
+            // cached response only once the assignment is visible
+            List<UUID> assigned = transactionTemplate.execute(status -> {
+                List<UUID> applied = tripRepository.assignAllIfSearching(
+                        driverByTrip.keySet().toArray(UUID[]::new),
+                        driverByTrip.values().toArray(UUID[]::new),
+                        LocalDateTime.now());
+                for (UUID tripId : applied) {
+                    eventPublisher.publishTripChanged(new TripChangedEvent(tripId));
+                }
+                return applied;
+            });
+            for (UUID tripId : assigned) {
+                tripStateCache.put(tripId, TripStatus.ASSIGNED);
+                tripResponseCache.invalidate(tripId);
+            }
+            writtenLsnStore.recordWrites(assigned);
+        }
+        // The UPDATE has committed; a crash before this line only means the batch is applied again
+        deduplicator.markSeen(CONSUMER, unseen);
+        consumed.increment(messages.size());
     }
 }
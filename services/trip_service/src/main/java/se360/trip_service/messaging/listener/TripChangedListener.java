@@ -0,0 +1,22 @@
+package se360.trip_service.messaging.listener;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import se360.trip_service.messaging.events.TripChangedEvent;
+import se360.trip_service.service.TripResponseCache;
+
+@Component
+@RequiredArgsConstructor
+public class TripChangedListener {
+
+    private final TripResponseCache tripResponseCache;
+
+    // Every bound event is relayed from the outbox after commit, so the next poll reloads the new state
+    @RabbitListener(queues = "#{tripChangedQueue.name}")
+    public void handleTripChanged(TripChangedEvent event) {
+        if (event.getTripId() != null) {
+            tripResponseCache.invalidate(event.getTripId());
+        }
+    }
+}
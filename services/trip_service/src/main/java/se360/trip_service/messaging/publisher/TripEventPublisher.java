@@ -1,54 +1,93 @@
 package se360.trip_service.messaging.publisher;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import se360.trip_service.messaging.RabbitMQConfiguration;
 import se360.trip_service.messaging.events.TripAssignedEvent;
 import se360.trip_service.messaging.events.TripCancelledEvent;
+import se360.trip_service.messaging.events.TripChangedEvent;
 import se360.trip_service.messaging.events.TripCompletedEvent;
 import se360.trip_service.messaging.events.TripRequestedEvent;
 import se360.trip_service.messaging.events.TripStartedEvent;
+import se360.trip_service.model.entities.OutboxEvent;
+import se360.trip_service.repository.OutboxEventRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Trip lifecycle events, written to the transactional outbox.
+ *
+ * Every publish inserts a {@code trip_outbox} row in the caller's transaction,
+ * so an event exists if and only if the trip change commits, and the API call
+ * never waits on the broker. {@link TripOutboxRelay} sends the rows once the
+ * transaction has committed.
+ */
 @Component
 @RequiredArgsConstructor
 public class TripEventPublisher {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxEventRepository outboxRepository;
+    private final MessageConverter messageConverter;
+    private final TripOutboxRelay outboxRelay;
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishTripRequested(TripRequestedEvent event) {
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfiguration.EXCHANGE,
-                RabbitMQConfiguration.ROUTING_KEY,
-                event);
+        append(event.getTripId(), RabbitMQConfiguration.ROUTING_KEY, event);
     }
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishTripAssigned(TripAssignedEvent event) {
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfiguration.EXCHANGE,
-                "trip.assigned",
-                event);
+        append(event.getTripId(), RabbitMQConfiguration.ASSIGNED_ROUTING, event);
     }
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishTripStarted(TripStartedEvent event) {
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfiguration.EXCHANGE,
-                "trip.started", // routing key — tạm hardcode
-                event);
+        append(event.getTripId(), RabbitMQConfiguration.STARTED_ROUTING, event);
     }
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishTripCompleted(TripCompletedEvent event) {
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfiguration.EXCHANGE,
-                "trip.completed",
-                event);
+        append(event.getTripId(), RabbitMQConfiguration.COMPLETED_ROUTING, event);
     }
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishTripCancelled(TripCancelledEvent event) {
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfiguration.EXCHANGE,
-                "trip.cancelled",
-                event);
+        append(event.getTripId(), RabbitMQConfiguration.CANCELLED_ROUTING, event);
+    }
+
+    // For changes that have no lifecycle event of their own, such as assignments
+    // applied from driver-service's trip.assigned
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishTripChanged(TripChangedEvent event) {
+        append(event.getTripId(), RabbitMQConfiguration.CHANGED_ROUTING, event);
     }
 
+    private void append(UUID tripId, String routingKey, Object event) {
+        // Serialized now with the same converter RabbitTemplate uses, so the relay sends identical bytes
+        Message message = messageConverter.toMessage(event, new MessageProperties());
+
+        outboxRepository.save(OutboxEvent.builder()
+                .tripId(tripId)
+                .routingKey(routingKey)
+                .eventType(event.getClass().getName())
+                .payload(new String(message.getBody(), StandardCharsets.UTF_8))
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.wakeUp();
+            }
+        });
+    }
 }
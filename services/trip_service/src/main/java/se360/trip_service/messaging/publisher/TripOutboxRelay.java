@@ -0,0 +1,246 @@
+package se360.trip_service.messaging.publisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se360.trip_service.messaging.RabbitMQConfiguration;
+import se360.trip_service.model.entities.OutboxEvent;
+import se360.trip_service.repository.OutboxEventRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drains {@code trip_outbox} to RabbitMQ.
+ *
+ * Each batch is claimed in a short transaction that sets a {@code lease-ms}
+ * lease on the rows ({@code FOR UPDATE SKIP LOCKED} keeps concurrent claims
+ * apart), then sent in one go and awaited outside any transaction, so a slow
+ * broker never pins a primary connection. A second short transaction deletes
+ * the rows the broker confirmed and releases the lease on the others, which
+ * are retried on the next pass. If the relay dies in between, the lease
+ * expires and the rows are claimed again, so delivery is at-least-once and an
+ * event written before a crash is sent after the restart. Within one relay events leave in
+ * insertion order; across instances, or after a retry, consumers may see them
+ * out of order.
+ *
+ * Commits wake the relay up immediately; the poll interval only matters for
+ * retries and for rows committed by another instance.
+ *
+ * Metrics: {@code trip.outbox.lag} (commit to broker confirm per event),
+ * {@code trip.outbox.oldest.age} (age of the oldest row still pending) and
+ * {@code trip.outbox.published} / {@code trip.outbox.failed}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TripOutboxRelay {
+
+    static final String MESSAGE_ID_PREFIX = "trip-outbox-";
+
+    private final OutboxEventRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${trip.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trip.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${trip.outbox.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${trip.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${trip.outbox.lease-ms:30000}")
+    private long leaseMs;
+
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicReference<LocalDateTime> oldestPending = new AtomicReference<>();
+
+    private ScheduledExecutorService scheduler;
+    private TransactionTemplate transactionTemplate;
+    private Timer lag;
+    private Counter published;
+    private Counter failed;
+
+    @PostConstruct
+    void start() {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lag = Timer.builder("trip.outbox.lag")
+                .description("Time from the event's commit to the broker's confirm")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.published = meterRegistry.counter("trip.outbox.published");
+        this.failed = meterRegistry.counter("trip.outbox.failed");
+        Gauge.builder("trip.outbox.oldest.age", this, TripOutboxRelay::oldestPendingAgeSeconds)
+                .description("Age of the oldest event not yet confirmed by the broker")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            log.info("Outbox relay disabled on this instance");
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("trip-outbox-relay").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::drain, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Ask for a drain as soon as possible. Calls made while one is already
+     * queued are coalesced into it.
+     */
+    public void wakeUp() {
+        if (scheduler != null && drainRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::drain);
+        }
+    }
+
+    /**
+     * Relay batches until the outbox is empty or a batch does not go through
+     * completely.
+     */
+    void drain() {
+        drainRequested.set(false);
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            log.warn("Outbox relay pass failed, retrying in {} ms", pollIntervalMs, e);
+        }
+    }
+
+    /**
+     * @return the number of events confirmed and removed from the outbox
+     */
+    int relayBatch() {
+        // Short transaction: lease the rows and give the connection back before talking to the broker
+        List<OutboxEvent> batch = transactionTemplate.execute(
+                status -> outboxRepository.claimNextBatch(batchSize, leaseMs / 1000.0));
+        if (batch == null || batch.isEmpty()) {
+            oldestPending.set(null);
+            return 0;
+        }
+        batch = new ArrayList<>(batch);
+        batch.sort(Comparator.comparing(OutboxEvent::getId));
+        oldestPending.set(batch.get(0).getCreatedAt());
+
+        // Send the whole batch first, then wait: confirms for the batch arrive together
+        List<CorrelationData> confirms = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            CorrelationData correlation = new CorrelationData(event.getId().toString());
+            try {
+                rabbitTemplate.send(RabbitMQConfiguration.EXCHANGE, event.getRoutingKey(), toMessage(event),
+                        correlation);
+            } catch (AmqpException e) {
+                log.warn("Could not send outbox event {}, retrying in {} ms", event.getId(), pollIntervalMs, e);
+                break;
+            }
+            confirms.add(correlation);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        List<Long> confirmed = new ArrayList<>(confirms.size());
+        List<Long> unconfirmed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            if (i < confirms.size() && awaitAck(confirms.get(i), deadline)) {
+                confirmed.add(event.getId());
+                lag.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+            } else {
+                unconfirmed.add(event.getId());
+                failed.increment();
+            }
+        }
+
+        // Second short transaction: confirmed rows go, the rest are free for the next pass
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!confirmed.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(confirmed);
+            }
+            if (!unconfirmed.isEmpty()) {
+                outboxRepository.releaseLeases(unconfirmed);
+            }
+        });
+        published.increment(confirmed.size());
+        if (!unconfirmed.isEmpty()) {
+            log.warn("Broker confirmed {} of {} outbox events, retrying the rest in {} ms",
+                    confirmed.size(), batch.size(), pollIntervalMs);
+        }
+        return confirmed.size();
+    }
+
+    private boolean awaitAck(CorrelationData correlation, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            CorrelationData.Confirm confirm = correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS);
+            if (!confirm.isAck()) {
+                log.warn("Broker nacked outbox event {}: {}", correlation.getId(), confirm.getReason());
+            }
+            return confirm.isAck();
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Same body and headers as RabbitTemplate.convertAndSend with the JSON converter. The message id
+    // comes from the outbox row, so every retry of an event carries the same id
+    private static Message toMessage(OutboxEvent event) {
+        return MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setMessageId(MESSAGE_ID_PREFIX + event.getId())
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, event.getEventType())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .build();
+    }
+
+    private double oldestPendingAgeSeconds() {
+        LocalDateTime oldest = oldestPending.get();
+        return oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+}
@@ -10,4 +10,6 @@ public class EstimateFareResponse {
 
     private BigDecimal distanceKm;
     private BigDecimal estimatedPrice;
+    // 1.00 when no surge applies
+    private BigDecimal surgeMultiplier;
 }
@@ -0,0 +1,15 @@
+package se360.trip_service.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TripPageResponse {
+    private List<TripResponse> items;
+
+    // Pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+}
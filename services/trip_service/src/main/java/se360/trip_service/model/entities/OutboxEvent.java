@@ -0,0 +1,44 @@
+package se360.trip_service.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A trip event waiting to be relayed to RabbitMQ. The payload is the exact
+ * JSON body the message converter produced, {@code eventType} its type id.
+ */
+@Entity
+@Table(name = "trip_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trip_id", nullable = false)
+    private UUID tripId;
+
+    @Column(name = "routing_key", nullable = false, length = 64)
+    private String routingKey;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set while a relay is sending the event; null when it is free to be claimed
+    @Column(name = "leased_until")
+    private LocalDateTime leasedUntil;
+}
@@ -12,10 +12,10 @@ import java.util.UUID;
 @Entity
 @Table(name = "trips",
         indexes = {
-                @Index(name = "idx_trips_passenger_id", columnList = "passenger_id"),
-                @Index(name = "idx_trips_driver_id", columnList = "driver_id"),
+                @Index(name = "idx_trips_passenger_created_at_id", columnList = "passenger_id, created_at DESC, id DESC"),
+                @Index(name = "idx_trips_driver_created_at_id", columnList = "driver_id, created_at DESC, id DESC"),
                 @Index(name = "idx_trips_status", columnList = "trip_status"),
-                @Index(name = "idx_trips_created_at", columnList = "created_at")
+                @Index(name = "idx_trips_created_at_id", columnList = "created_at DESC, id DESC")
         })
 @Getter
 @Setter
@@ -104,6 +104,11 @@ public class Trip {
     @Column(name = "request_id")
     private UUID requestId;
 
+    // ===== ASSIGNMENT LOCK =====
+    // Fencing token of the lock lease that assigned the trip
+    @Column(name = "assignment_token")
+    private Long assignmentToken;
+
     // ===== OPTIMISTIC LOCKING =====
     @Version
     private int version;
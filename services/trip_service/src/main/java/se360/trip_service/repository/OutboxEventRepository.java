@@ -0,0 +1,39 @@
+package se360.trip_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import se360.trip_service.model.entities.OutboxEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Claim the oldest pending events for {@code leaseSeconds}. Rows under
+     * another relay's unexpired lease, or being claimed right now, are
+     * skipped, so several instances can drain the outbox without publishing
+     * the same event twice. Returned in no particular order.
+     */
+    @Query(value = """
+            UPDATE trip_outbox SET leased_until = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds)
+            WHERE id IN (
+                SELECT id FROM trip_outbox
+                WHERE leased_until IS NULL OR leased_until < LOCALTIMESTAMP
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<OutboxEvent> claimNextBatch(@Param("limit") int limit, @Param("leaseSeconds") double leaseSeconds);
+
+    /**
+     * Hand claimed events back for the next pass, e.g. when the broker did
+     * not confirm them.
+     */
+    @Modifying
+    @Query(value = "UPDATE trip_outbox SET leased_until = NULL WHERE id IN (:ids)", nativeQuery = true)
+    int releaseLeases(@Param("ids") Collection<Long> ids);
+}
@@ -1,10 +1,16 @@
 package se360.trip_service.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import se360.trip_service.model.entities.Trip;
 import se360.trip_service.model.enums.TripStatus;
 
+import java.util.Optional;
 import java.util.UUID;
 import java.util.List;
 import java.time.LocalDateTime;
@@ -12,7 +18,7 @@ import java.time.LocalDateTime;
 
 
 @Repository
-public interface TripRepository extends JpaRepository<Trip, UUID> {
+public interface TripRepository extends JpaRepository<Trip, UUID>, JpaSpecificationExecutor<Trip> {
     List<Trip> findByPassengerId(UUID passengerId);
 
     List<Trip> findByDriverId(UUID driverId);
@@ -21,4 +27,55 @@ public interface TripRepository extends JpaRepository<Trip, UUID> {
 
 
     List<Trip> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
-}
\ No newline at end of file
+
+    /**
+     * Assign a trip in one statement, only if it is still SEARCHING and no
+     * newer assignment lock lease has written it. A fencing token of 0 means
+     * no lock was taken and only the status decides.
+     *
+     * @return number of rows updated: 1 if assigned, 0 otherwise
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE trips
+            SET driver_id = :driverId,
+                trip_status = 'ASSIGNED',
+                assignment_token = CASE WHEN :fencingToken = 0 THEN assignment_token ELSE :fencingToken END,
+                accepted_at = :now,
+                updated_at = :now,
+                version = version + 1
+            WHERE id = :tripId
+              AND trip_status = 'SEARCHING'
+              AND (:fencingToken = 0 OR assignment_token IS NULL OR assignment_token < :fencingToken)
+            """, nativeQuery = true)
+    int assignIfSearching(@Param("tripId") UUID tripId,
+                          @Param("driverId") UUID driverId,
+                          @Param("fencingToken") long fencingToken,
+                          @Param("now") LocalDateTime now);
+
+    @Query("SELECT t.tripStatus FROM Trip t WHERE t.id = :tripId")
+    Optional<TripStatus> findStatusById(@Param("tripId") UUID tripId);
+
+    /**
+     * Assign a batch of trips in one round-trip. The two arrays are zipped
+     * pairwise; trips that are no longer SEARCHING are left alone.
+     *
+     * @return ids of the trips that were assigned
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE trips t
+            SET driver_id = a.driver_id,
+                trip_status = 'ASSIGNED',
+                accepted_at = :now,
+                updated_at = :now,
+                version = t.version + 1
+            FROM unnest(CAST(:tripIds AS uuid[]), CAST(:driverIds AS uuid[])) AS a(trip_id, driver_id)
+            WHERE t.id = a.trip_id
+              AND t.trip_status = 'SEARCHING'
+            RETURNING t.id
+            """, nativeQuery = true)
+    List<UUID> assignAllIfSearching(@Param("tripIds") UUID[] tripIds,
+                                    @Param("driverIds") UUID[] driverIds,
+                                    @Param("now") LocalDateTime now);
+}
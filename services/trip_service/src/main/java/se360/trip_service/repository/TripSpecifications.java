@@ -0,0 +1,65 @@
+package se360.trip_service.repository;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import se360.trip_service.model.entities.Trip;
+import se360.trip_service.model.enums.TripStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filters and keyset condition for listing trips newest first.
+ *
+ * Only the filters that are set become predicates, so each combination gets
+ * its own plan and can use the matching (column, created_at, id) index.
+ */
+public final class TripSpecifications {
+
+    /**
+     * Listing order; the keyset condition in {@link #before} depends on it.
+     */
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private TripSpecifications() {
+    }
+
+    /**
+     * @param from inclusive lower bound on created_at, may be null
+     * @param to   exclusive upper bound on created_at, may be null
+     */
+    public static Specification<Trip> matching(UUID passengerId, UUID driverId, TripStatus status,
+                                               LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(5);
+            if (passengerId != null) {
+                predicates.add(cb.equal(root.get("passengerId"), passengerId));
+            }
+            if (driverId != null) {
+                predicates.add(cb.equal(root.get("driverId"), driverId));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("tripStatus"), status));
+            }
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), to));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Trips strictly after the given one in {@link #NEWEST_FIRST} order.
+     */
+    public static Specification<Trip> before(LocalDateTime createdAt, UUID id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.<UUID>get("id"), id)));
+    }
+}
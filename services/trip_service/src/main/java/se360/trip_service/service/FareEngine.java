@@ -0,0 +1,124 @@
+package se360.trip_service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import se360.trip_service.model.enums.VehicleType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Trip fares: base fare plus per-km rate for the vehicle type, times the peak
+ * multiplier at peak hour and the surge multiplier of the pickup cell, at
+ * least the minimum fare, rounded half-up to the nearest 100. Rates and
+ * multipliers come from a {@link PricingSnapshot}, by default the one
+ * currently in force.
+ *
+ * A distance of {@code d * 10^-scale} km is priced in long arithmetic: the
+ * combined multiplier is kept as a reduced fraction of basis points (x1.25 is
+ * 5/4) so the result is exact and equal, in value and scale, to the
+ * BigDecimal formula. Distances with more than 9 decimals, a negative scale,
+ * an unscaled value beyond 2^46 or a product that overflows are priced with
+ * BigDecimal instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class FareEngine {
+
+    static final long ROUNDING_STEP = 100;
+
+    private static final int MAX_UNSCALED_BITS = 46;
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private final PricingRules pricingRules;
+
+    public BigDecimal fare(BigDecimal distanceKm, VehicleType type, boolean peakHour) {
+        return fare(pricingRules.current(), distanceKm, type, peakHour, PricingSnapshot.BASIS);
+    }
+
+    /**
+     * @param surge surge multiplier in basis points, {@link PricingSnapshot#BASIS} for none
+     */
+    public BigDecimal fare(PricingSnapshot pricing, BigDecimal distanceKm, VehicleType type, boolean peakHour,
+                           long surge) {
+        int scale = distanceKm.scale();
+        BigInteger unscaled = distanceKm.unscaledValue();
+        if (scale < 0 || scale >= POW10.length || unscaled.bitLength() > MAX_UNSCALED_BITS) {
+            return exactFare(pricing, distanceKm, type, peakHour, surge);
+        }
+        try {
+            long fare = fare(pricing, unscaled.longValue(), scale, type, peakHour, surge);
+            return BigDecimal.valueOf(fare / ROUNDING_STEP, -2);
+        } catch (ArithmeticException e) {
+            return exactFare(pricing, distanceKm, type, peakHour, surge);
+        }
+    }
+
+    public long fare(long distance, int scale, VehicleType type, boolean peakHour) {
+        return fare(pricingRules.current(), distance, scale, type, peakHour, PricingSnapshot.BASIS);
+    }
+
+    /**
+     * Fare for {@code distance * 10^-scale} km, without allocating.
+     *
+     * @param scale 0 to 9
+     * @param distance at most 2^46 in absolute value
+     * @param surge surge multiplier in basis points, {@link PricingSnapshot#BASIS} for none
+     * @throws ArithmeticException if the fare does not fit the long arithmetic
+     */
+    public long fare(PricingSnapshot pricing, long distance, int scale, VehicleType type, boolean peakHour,
+                     long surge) {
+        long numerator = peakHour ? pricing.peakMultiplier() : PricingSnapshot.BASIS;
+        long denominator = PricingSnapshot.BASIS;
+        if (surge != PricingSnapshot.BASIS) {
+            numerator *= surge;
+            denominator *= PricingSnapshot.BASIS;
+        }
+        long gcd = gcd(numerator, denominator);
+        numerator /= gcd;
+        denominator /= gcd;
+
+        long unit = POW10[scale];
+        // Fare in units of 10^-scale / denominator
+        long fare = Math.multiplyExact(
+                Math.addExact(Math.multiplyExact(pricing.baseFare(type), unit),
+                        Math.multiplyExact(pricing.perKmRate(type), distance)),
+                numerator);
+        long minimum = Math.multiplyExact(Math.multiplyExact(pricing.minimumFare(), unit), denominator);
+        if (fare < minimum) {
+            return pricing.minimumFare();
+        }
+        // Positive from here, so half-up is add-half-then-truncate
+        long step = Math.multiplyExact(ROUNDING_STEP * unit, denominator);
+        return Math.addExact(fare, step / 2) / step * ROUNDING_STEP;
+    }
+
+    private static BigDecimal exactFare(PricingSnapshot pricing, BigDecimal distanceKm, VehicleType type,
+                                        boolean peakHour, long surge) {
+        BigDecimal fare = BigDecimal.valueOf(pricing.baseFare(type))
+                .add(BigDecimal.valueOf(pricing.perKmRate(type)).multiply(distanceKm));
+        if (peakHour) {
+            fare = fare.multiply(BigDecimal.valueOf(pricing.peakMultiplier(), 4));
+        }
+        if (surge != PricingSnapshot.BASIS) {
+            fare = fare.multiply(BigDecimal.valueOf(surge, 4));
+        }
+        BigDecimal minimum = BigDecimal.valueOf(pricing.minimumFare());
+        if (fare.compareTo(minimum) < 0) {
+            fare = minimum;
+        }
+        return fare.setScale(-2, RoundingMode.HALF_UP);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
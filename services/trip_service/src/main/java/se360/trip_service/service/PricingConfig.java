@@ -0,0 +1,39 @@
+package se360.trip_service.service;
+
+import se360.trip_service.model.enums.VehicleType;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pricing rules as written in the pricing file, see {@code pricing.json}.
+ * Validated and turned into a {@link PricingSnapshot} on load.
+ *
+ * @param peakHours {@code HH:mm-HH:mm} windows in {@code zone}; a window may
+ *                  wrap past midnight
+ */
+public record PricingConfig(
+        String version,
+        long minimumFare,
+        BigDecimal peakMultiplier,
+        List<String> peakHours,
+        String zone,
+        Map<VehicleType, VehicleRate> vehicles,
+        Surge surge) {
+
+    public record VehicleRate(long baseFare, long perKmRate) {
+    }
+
+    /**
+     * @param windowMinutes demand and supply are summed over this many minutes
+     * @param minDemand     cells with fewer trip requests in the window never surge
+     * @param tiers         demand/supply ratio thresholds, ascending
+     */
+    public record Surge(boolean enabled, int windowMinutes, long minDemand, BigDecimal maxMultiplier,
+                        List<Tier> tiers) {
+    }
+
+    public record Tier(BigDecimal ratio, BigDecimal multiplier) {
+    }
+}
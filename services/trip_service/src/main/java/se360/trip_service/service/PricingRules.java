@@ -0,0 +1,142 @@
+package se360.trip_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pricing rules in force, loaded from {@code trip.pricing.location}.
+ *
+ * Readers get the current {@link PricingSnapshot} with one volatile read and
+ * never block. {@link #reload} parses and validates the file into a new
+ * snapshot and only then swaps the reference; a file that fails validation
+ * is rejected and the previous version stays in force. At startup an invalid
+ * file fails the application.
+ *
+ * When the location is a file on disk it is checked for changes every
+ * {@code reload-check-ms}; reloads can also be triggered through the
+ * {@code pricing} actuator endpoint. Outcomes are counted as
+ * {@code trip.pricing.reloads{result}}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PricingRules {
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${trip.pricing.location:classpath:pricing.json}")
+    private String location;
+
+    @Value("${trip.pricing.reload-check-ms:10000}")
+    private long reloadCheckMs;
+
+    private volatile PricingSnapshot current;
+    private long loadedModified;
+
+    private ScheduledExecutorService scheduler;
+    private Counter applied;
+    private Counter rejected;
+
+    @PostConstruct
+    void start() throws IOException {
+        this.applied = Counter.builder("trip.pricing.reloads")
+                .description("Pricing file reloads by outcome")
+                .tag("result", "applied")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("trip.pricing.reloads")
+                .description("Pricing file reloads by outcome")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+
+        Resource resource = resourceLoader.getResource(location);
+        this.loadedModified = lastModified(resource);
+        this.current = read(resource);
+        log.info("Pricing rules {} loaded from {}", current.version(), location);
+
+        if (resource.isFile() && reloadCheckMs > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("pricing-reload").daemon(true).factory());
+            scheduler.scheduleWithFixedDelay(this::reloadIfChanged, reloadCheckMs, reloadCheckMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public PricingSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Re-read the pricing file and put it in force.
+     *
+     * @throws IllegalArgumentException if the file is invalid; the current
+     *                                  rules stay in force
+     * @throws IOException              if the file cannot be read
+     */
+    public synchronized PricingSnapshot reload() throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        long modified = lastModified(resource);
+        PricingSnapshot next;
+        try {
+            next = read(resource);
+        } catch (IOException | RuntimeException e) {
+            rejected.increment();
+            // Not retried until the file changes again
+            this.loadedModified = modified;
+            throw e;
+        }
+        PricingSnapshot previous = current;
+        this.current = next;
+        this.loadedModified = modified;
+        applied.increment();
+        log.info("Pricing rules {} replaced {}", next.version(), previous.version());
+        return next;
+    }
+
+    synchronized void reloadIfChanged() {
+        try {
+            if (lastModified(resourceLoader.getResource(location)) != loadedModified) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.error("Rejected pricing file {}, keeping rules {}", location, current.version(), e);
+        }
+    }
+
+    private PricingSnapshot read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return PricingSnapshot.from(objectMapper.readValue(in, PricingConfig.class));
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.isFile() ? resource.lastModified() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
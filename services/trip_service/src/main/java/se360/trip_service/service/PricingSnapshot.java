@@ -0,0 +1,221 @@
+package se360.trip_service.service;
+
+import se360.trip_service.model.enums.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * One validated version of the pricing rules. Immutable: a reload builds a
+ * new snapshot and swaps the reference, so a quote that read a snapshot
+ * prices against one consistent version.
+ *
+ * Rates are held in arrays indexed by {@code VehicleType.ordinal()};
+ * multipliers and ratios in basis points ({@value #BASIS} = 1.0).
+ */
+public final class PricingSnapshot {
+
+    public static final long BASIS = 10_000;
+
+    private static final int MAX_SURGE_WINDOW_MINUTES = 60;
+
+    private final String version;
+    private final Instant loadedAt;
+    private final long minimumFare;
+    private final long peakMultiplier;
+    private final long[] baseFare;
+    private final long[] perKmRate;
+    private final ZoneId zone;
+    private final int[] peakStartMinute;
+    private final int[] peakEndMinute;
+
+    private final boolean surgeEnabled;
+    private final int surgeWindowMinutes;
+    private final long surgeMinDemand;
+    private final long surgeMaxMultiplier;
+    private final long[] surgeTierRatio;
+    private final long[] surgeTierMultiplier;
+
+    private PricingSnapshot(PricingConfig config) {
+        this.version = require(config.version(), "version");
+        this.loadedAt = Instant.now();
+
+        if (config.minimumFare() < 0 || config.minimumFare() % FareEngine.ROUNDING_STEP != 0) {
+            throw new IllegalArgumentException(
+                    "minimumFare must be a non-negative multiple of " + FareEngine.ROUNDING_STEP);
+        }
+        this.minimumFare = config.minimumFare();
+        this.peakMultiplier = multiplier(require(config.peakMultiplier(), "peakMultiplier"), "peakMultiplier");
+
+        VehicleType[] types = VehicleType.values();
+        this.baseFare = new long[types.length];
+        this.perKmRate = new long[types.length];
+        for (VehicleType type : types) {
+            PricingConfig.VehicleRate rate = require(config.vehicles(), "vehicles").get(type);
+            if (rate == null) {
+                throw new IllegalArgumentException("No rates for vehicle type " + type);
+            }
+            if (rate.baseFare() < 0 || rate.perKmRate() < 0) {
+                throw new IllegalArgumentException("Rates for " + type + " must not be negative");
+            }
+            baseFare[type.ordinal()] = rate.baseFare();
+            perKmRate[type.ordinal()] = rate.perKmRate();
+        }
+
+        try {
+            this.zone = ZoneId.of(require(config.zone(), "zone"));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown zone " + config.zone(), e);
+        }
+        List<String> windows = config.peakHours() != null ? config.peakHours() : List.of();
+        this.peakStartMinute = new int[windows.size()];
+        this.peakEndMinute = new int[windows.size()];
+        for (int i = 0; i < windows.size(); i++) {
+            String[] bounds = windows.get(i).split("-");
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException("Peak window must be HH:mm-HH:mm: " + windows.get(i));
+            }
+            peakStartMinute[i] = minuteOfDay(bounds[0]);
+            peakEndMinute[i] = minuteOfDay(bounds[1]);
+        }
+
+        PricingConfig.Surge surge = require(config.surge(), "surge");
+        this.surgeEnabled = surge.enabled();
+        if (surge.windowMinutes() < 1 || surge.windowMinutes() > MAX_SURGE_WINDOW_MINUTES) {
+            throw new IllegalArgumentException("surge.windowMinutes must be between 1 and " + MAX_SURGE_WINDOW_MINUTES);
+        }
+        this.surgeWindowMinutes = surge.windowMinutes();
+        this.surgeMinDemand = surge.minDemand();
+        this.surgeMaxMultiplier = multiplier(require(surge.maxMultiplier(), "surge.maxMultiplier"),
+                "surge.maxMultiplier");
+
+        List<PricingConfig.Tier> tiers = surge.tiers() != null ? surge.tiers() : List.of();
+        this.surgeTierRatio = new long[tiers.size()];
+        this.surgeTierMultiplier = new long[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            PricingConfig.Tier tier = tiers.get(i);
+            surgeTierRatio[i] = basisPoints(require(tier.ratio(), "surge.tiers.ratio"), "surge.tiers.ratio");
+            surgeTierMultiplier[i] = multiplier(require(tier.multiplier(), "surge.tiers.multiplier"),
+                    "surge.tiers.multiplier");
+            if (i > 0 && surgeTierRatio[i] <= surgeTierRatio[i - 1]) {
+                throw new IllegalArgumentException("surge.tiers must be in ascending ratio order");
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the rules are incomplete or invalid
+     */
+    public static PricingSnapshot from(PricingConfig config) {
+        return new PricingSnapshot(config);
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public long minimumFare() {
+        return minimumFare;
+    }
+
+    public long peakMultiplier() {
+        return peakMultiplier;
+    }
+
+    public long baseFare(VehicleType type) {
+        return baseFare[type.ordinal()];
+    }
+
+    public long perKmRate(VehicleType type) {
+        return perKmRate[type.ordinal()];
+    }
+
+    public boolean surgeEnabled() {
+        return surgeEnabled;
+    }
+
+    public int surgeWindowMinutes() {
+        return surgeWindowMinutes;
+    }
+
+    public boolean isPeakHour(LocalTime time) {
+        int minute = time.getHour() * 60 + time.getMinute();
+        for (int i = 0; i < peakStartMinute.length; i++) {
+            int start = peakStartMinute[i];
+            int end = peakEndMinute[i];
+            boolean inside = start <= end
+                    ? minute >= start && minute < end
+                    : minute >= start || minute < end;
+            if (inside) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Surge multiplier for a cell, in basis points: the highest tier whose
+     * ratio the demand/supply ratio reaches, capped at the maximum. A cell
+     * without supply counts as having one driver.
+     */
+    public long surgeMultiplier(long demand, long supply) {
+        if (!surgeEnabled || demand < surgeMinDemand || demand <= 0) {
+            return BASIS;
+        }
+        long ratio = demand * BASIS / Math.max(supply, 1);
+        long multiplier = BASIS;
+        for (int i = 0; i < surgeTierRatio.length && ratio >= surgeTierRatio[i]; i++) {
+            multiplier = surgeTierMultiplier[i];
+        }
+        return Math.min(multiplier, surgeMaxMultiplier);
+    }
+
+    private static <T> T require(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value;
+    }
+
+    private static long multiplier(BigDecimal value, String field) {
+        long basisPoints = basisPoints(value, field);
+        if (basisPoints < BASIS) {
+            throw new IllegalArgumentException(field + " must be at least 1");
+        }
+        return basisPoints;
+    }
+
+    private static long basisPoints(BigDecimal value, String field) {
+        try {
+            long basisPoints = value.movePointRight(4).longValueExact();
+            if (basisPoints <= 0 || basisPoints > 100 * BASIS) {
+                throw new IllegalArgumentException(field + " must be above 0 and at most 100");
+            }
+            return basisPoints;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(field + " allows at most 4 decimals: " + value, e);
+        }
+    }
+
+    private static int minuteOfDay(String text) {
+        try {
+            LocalTime time = LocalTime.parse(text.trim());
+            return time.getHour() * 60 + time.getMinute();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time in peak window: " + text, e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package se360.trip_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se360.trip_service.util.GeoCells;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-cell surge from live demand and supply.
+ *
+ * Demand is the number of trips requested in the cell, counted per minute in
+ * {@code surge:demand:<cell>:<epochMinute>}. Supply is the number of distinct
+ * drivers that reported a position in the cell, which driver-service adds to
+ * the HyperLogLog {@code surge:supply:<cell>:<epochMinute>} as it writes
+ * locations. Cells are {@link GeoCells} of {@code surge.cell-size-deg}, the
+ * same in both services.
+ *
+ * Counts over the snapshot's surge window are read with one pipelined MGET
+ * and PFCOUNT and kept per cell for {@code refresh-ms}, so quoting does not
+ * hit Redis on every request. A Redis error prices without surge. Applied
+ * multipliers are recorded as {@code trip.surge.multiplier}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SurgePricing {
+
+    static final String DEMAND_PREFIX = "surge:demand:";
+    static final String SUPPLY_PREFIX = "surge:supply:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${surge.cell-size-deg:0.02}")
+    private double cellSizeDeg;
+
+    @Value("${surge.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    @Value("${trip.surge.refresh-ms:15000}")
+    private long refreshMs;
+
+    @Value("${trip.surge.max-cells:10000}")
+    private long maxCells;
+
+    private Cache<String, Counts> counts;
+    private DistributionSummary applied;
+
+    record Counts(long demand, long supply) {
+    }
+
+    @PostConstruct
+    void init() {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxCells)
+                .expireAfterWrite(Duration.ofMillis(refreshMs))
+                .build();
+        this.applied = DistributionSummary.builder("trip.surge.multiplier")
+                .description("Surge multiplier applied to quotes")
+                .register(meterRegistry);
+    }
+
+    public String cellOf(double lat, double lng) {
+        return GeoCells.cellOf(lat, lng, cellSizeDeg);
+    }
+
+    /**
+     * Count a trip request in its pickup cell. Inside a transaction the count
+     * is added after commit.
+     */
+    public void recordDemand(double pickupLat, double pickupLng) {
+        String key = DEMAND_PREFIX + cellOf(pickupLat, pickupLng) + ":" + epochMinute();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementDemand(key);
+                }
+            });
+        } else {
+            incrementDemand(key);
+        }
+    }
+
+    /**
+     * @return the surge multiplier at the pickup, in basis points
+     */
+    public long multiplierBasisPoints(PricingSnapshot pricing, double pickupLat, double pickupLng) {
+        if (!pricing.surgeEnabled()) {
+            return PricingSnapshot.BASIS;
+        }
+        int window = (int) Math.min(pricing.surgeWindowMinutes(), ttlMinutes);
+        String cell = cellOf(pickupLat, pickupLng);
+        Counts current = counts.get(cell + "/" + window, key -> load(cell, window));
+        long multiplier = pricing.surgeMultiplier(current.demand(), current.supply());
+        applied.record((double) multiplier / PricingSnapshot.BASIS);
+        return multiplier;
+    }
+
+    private Counts load(String cell, int window) {
+        long minute = epochMinute();
+        String[] demandKeys = new String[window];
+        String[] supplyKeys = new String[window];
+        for (int i = 0; i < window; i++) {
+            demandKeys[i] = DEMAND_PREFIX + cell + ":" + (minute - i);
+            supplyKeys[i] = SUPPLY_PREFIX + cell + ":" + (minute - i);
+        }
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                conn.mGet(demandKeys);
+                conn.pfCount(supplyKeys);
+                return null;
+            });
+            long demand = 0;
+            for (Object value : (List<?>) results.get(0)) {
+                if (value != null) {
+                    demand += Long.parseLong(value.toString());
+                }
+            }
+            long supply = results.get(1) instanceof Long count ? count : 0;
+            return new Counts(demand, supply);
+        } catch (Exception e) {
+            log.warn("Could not read surge counts of cell {}, pricing without surge", cell, e);
+            return new Counts(0, 0);
+        }
+    }
+
+    private void incrementDemand(String key) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                conn.incr(key);
+                conn.expire(key, TimeUnit.MINUTES.toSeconds(ttlMinutes));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Could not record surge demand {}", key, e);
+        }
+    }
+
+    private static long epochMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+}
@@ -1,50 +1,92 @@
 package se360.trip_service.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Per-trip assignment lock with fencing tokens, as Lua scripts so every
+ * operation is a single atomic Redis call.
+ *
+ * Acquire checks the cached trip state and takes the lock in one step, and
+ * hands out a strictly increasing fencing token. Release and extend only act
+ * if the lock is still held by the same lease (owner and token), so an
+ * expired holder can never drop or prolong a newer holder's lock. The token
+ * is also written with the assignment, so the DB rejects a stale holder that
+ * reaches it late.
+ */
 @Service
 @RequiredArgsConstructor
 public class TripAssignmentLockService {
 
-    private final StringRedisTemplate redisTemplate;
+    /**
+     * Returned by {@link #tryAcquire} when another lease holds the lock.
+     */
+    public static final long HELD_BY_OTHER = 0;
+
+    /**
+     * Returned by {@link #tryAcquire} when the trip is already past SEARCHING.
+     */
+    public static final long TRIP_CLOSED = -1;
+
     private static final String KEY_PREFIX = "lock:trip:assign:";
+    private static final String FENCE_KEY = KEY_PREFIX + "fence";
+
+    private static final RedisScript<Long> ACQUIRE =
+            RedisScript.of(new ClassPathResource("scripts/trip-assign-acquire.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE =
+            RedisScript.of(new ClassPathResource("scripts/trip-assign-release.lua"), Long.class);
+    private static final RedisScript<Long> EXTEND =
+            RedisScript.of(new ClassPathResource("scripts/trip-assign-extend.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
 
     /**
-     * Attempt to acquire a lock for trip assignment.
-     * Uses SETNX (SET if Not eXists) with TTL for atomic lock acquisition.
+     * Attempt to acquire the assignment lock of a trip.
      *
-     * @param tripId     The trip to lock
-     * @param driverId   The driver attempting to acquire the lock
-     * @param ttlSeconds Time-to-live for the lock
-     * @return true if lock acquired, false if already held by another driver
+     * @param tripId   The trip to lock
+     * @param driverId The driver attempting to acquire the lock
+     * @param ttl      Time-to-live for the lock
+     * @return the fencing token (&gt; 0) if acquired, otherwise
+     *         {@link #HELD_BY_OTHER} or {@link #TRIP_CLOSED}
      */
-    public boolean tryAcquire(UUID tripId, UUID driverId, long ttlSeconds) {
-        String key = KEY_PREFIX + tripId;
-        String value = driverId.toString();
-
-        Boolean ok = redisTemplate.opsForValue()
-                .setIfAbsent(key, value, Duration.ofSeconds(ttlSeconds));
+    public long tryAcquire(UUID tripId, UUID driverId, Duration ttl) {
+        Long result = redisTemplate.execute(
+                ACQUIRE,
+                List.of(TripStateCache.KEY_PREFIX + tripId, KEY_PREFIX + tripId, FENCE_KEY),
+                driverId.toString(),
+                Long.toString(ttl.toMillis()));
+        return result != null ? result : HELD_BY_OTHER;
+    }
 
-        return Boolean.TRUE.equals(ok);
+    /**
+     * Release the lock if it is still held by this lease.
+     *
+     * @return false if the lease had already expired
+     */
+    public boolean release(UUID tripId, UUID driverId, long fencingToken) {
+        Long result = redisTemplate.execute(RELEASE, List.of(KEY_PREFIX + tripId), lease(driverId, fencingToken));
+        return result != null && result == 1;
     }
 
     /**
-     * Release a lock for trip assignment.
-     * Only releases if the current holder matches the driverId.
+     * Extend the lock if it is still held by this lease.
      *
-     * @param tripId   The trip to unlock
-     * @param driverId The driver releasing the lock
+     * @return false if the lease had already expired
      */
-    public void release(UUID tripId, UUID driverId) {
-        String key = KEY_PREFIX + tripId;
-        String current = redisTemplate.opsForValue().get(key);
-        if (driverId.toString().equals(current)) {
-            redisTemplate.delete(key);
-        }
+    public boolean extend(UUID tripId, UUID driverId, long fencingToken, Duration ttl) {
+        Long result = redisTemplate.execute(EXTEND, List.of(KEY_PREFIX + tripId),
+                lease(driverId, fencingToken), Long.toString(ttl.toMillis()));
+        return result != null && result == 1;
+    }
+
+    private static String lease(UUID driverId, long fencingToken) {
+        return driverId + ":" + fencingToken;
     }
 }
@@ -0,0 +1,100 @@
+package se360.trip_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se360.trip_service.model.dtos.TripResponse;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * In-process cache of {@code GET /trips/{id}} responses, for passenger apps
+ * polling the status of their trip.
+ *
+ * Bounded by {@code max-entries} and expired {@code ttl-ms} after each write.
+ * Transitions made by this instance replace the entry after commit; the
+ * assigned/started/completed/cancelled fan-out evicts it on every other
+ * instance, so the TTL only bounds staleness when an invalidation is lost.
+ * Hits, misses, evictions and size are exported as {@code cache.*} with
+ * {@code cache=trip.response}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TripResponseCache {
+
+    static final String CACHE_NAME = "trip.response";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${trip.response-cache.max-entries:50000}")
+    private long maxEntries;
+
+    @Value("${trip.response-cache.ttl-ms:10000}")
+    private long ttlMs;
+
+    private Cache<UUID, TripResponse> cache;
+
+    @PostConstruct
+    void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Cached response, or the loader's result (cached when present).
+     * Concurrent misses on the same trip share one load.
+     */
+    public Optional<TripResponse> get(UUID tripId, Function<UUID, Optional<TripResponse>> loader) {
+        return Optional.ofNullable(cache.get(tripId, id -> loader.apply(id).orElse(null)));
+    }
+
+    /**
+     * Store the state a transition wrote. Inside a transaction the entry is
+     * dropped now and written after commit, so a rolled-back transition is
+     * never served.
+     */
+    public void put(TripResponse response) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(response.getId());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(response.getId(), response);
+                }
+            });
+        } else {
+            cache.put(response.getId(), response);
+        }
+    }
+
+    /**
+     * Drop a trip whose new state is not at hand. Inside a transaction the
+     * entry is dropped again after commit, in case a poll reloaded the old
+     * state meanwhile.
+     */
+    public void invalidate(UUID tripId) {
+        cache.invalidate(tripId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(tripId);
+                }
+            });
+        }
+    }
+}
@@ -2,18 +2,21 @@ package se360.trip_service.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.StaleObjectStateException;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
+import se360.trip_service.config.ReadConsistency;
 import se360.trip_service.mapper.TripMapper;
 import se360.trip_service.messaging.events.*;
 import se360.trip_service.messaging.publisher.TripEventPublisher;
 import se360.trip_service.model.dtos.CreateTripRequest;
 import se360.trip_service.model.dtos.TripResponse;
+import se360.trip_service.model.dtos.TripPageResponse;
 import se360.trip_service.model.dtos.EstimateFareResponse;
 import se360.trip_service.model.dtos.EstimateFareRequest;
 import se360.trip_service.model.dtos.RateTripRequest;
@@ -24,12 +27,15 @@ import se360.trip_service.model.enums.TripStatus;
 import se360.trip_service.model.enums.VehicleType;
 import se360.trip_service.repository.TripRepository;
 import se360.trip_service.repository.TripRatingRepository;
+import se360.trip_service.repository.TripSpecifications;
 import se360.trip_service.util.DistanceUtil;
 import se360.trip_service.model.dtos.TripRatingResponse;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.List;
@@ -44,6 +50,16 @@ public class TripService {
     private final TripMapper tripMapper;
     private final TripRatingRepository tripRatingRepository;
     private final TripAssignmentLockService lockService;
+    private final TripStateCache tripStateCache;
+    private final TripResponseCache tripResponseCache;
+    private final WrittenLsnStore writtenLsnStore;
+    private final FareEngine fareEngine;
+    private final PricingRules pricingRules;
+    private final SurgePricing surgePricing;
+
+    private static final Duration ASSIGNMENT_LOCK_TTL = Duration.ofSeconds(5);
+    private static final long NO_LOCK = Long.MIN_VALUE;
+    private static final int MAX_PAGE_SIZE = 100;
 
     // ░░░ ESTIMATE FARE ░░░
     public EstimateFareResponse estimateFare(EstimateFareRequest req) {
@@ -53,14 +69,20 @@ public class TripService {
                 req.getDropoffLat(),
                 req.getDropoffLng());
 
-        BigDecimal estimatedPrice = calculateFare(distanceKm, req.getVehicleType(), false);
+        PricingSnapshot pricing = pricingRules.current();
+        long surge = surgePricing.multiplierBasisPoints(
+                pricing, req.getPickupLat().doubleValue(), req.getPickupLng().doubleValue());
+        BigDecimal estimatedPrice = quote(pricing, distanceKm, req.getVehicleType(), surge);
 
         return new EstimateFareResponse(
                 distanceKm.setScale(2, RoundingMode.HALF_UP),
-                estimatedPrice.setScale(0, RoundingMode.HALF_UP));
+                estimatedPrice.setScale(0, RoundingMode.HALF_UP),
+                BigDecimal.valueOf(surge, 4).setScale(2, RoundingMode.HALF_UP));
     }
 
     // ░░░ CREATE TRIP + publish trip.requested ░░░
+    // Events go to the outbox in the same transaction as the trip row
+    @Transactional
     public TripResponse createTrip(CreateTripRequest req) {
         Trip trip = tripMapper.toEntity(req);
 
@@ -75,9 +97,16 @@ public class TripService {
                 req.getDropoffLng());
 
         trip.setDistanceKm(distanceKm);
-        trip.setEstimatedPrice(calculateFare(distanceKm, req.getVehicleType(), false));
+        double pickupLat = req.getPickupLat().doubleValue();
+        double pickupLng = req.getPickupLng().doubleValue();
+        PricingSnapshot pricing = pricingRules.current();
+        long surge = surgePricing.multiplierBasisPoints(pricing, pickupLat, pickupLng);
+        trip.setEstimatedPrice(quote(pricing, distanceKm, req.getVehicleType(), surge));
 
         Trip savedTrip = tripRepository.save(trip);
+        tripStateCache.put(savedTrip.getId(), TripStatus.SEARCHING);
+        surgePricing.recordDemand(pickupLat, pickupLng);
+        writtenLsnStore.recordWrite(savedTrip.getId(), savedTrip.getPassengerId());
 
         TripRequestedEvent event = TripRequestedEvent.builder()
                 .tripId(savedTrip.getId())
@@ -91,23 +120,64 @@ public class TripService {
 
         eventPublisher.publishTripRequested(event);
 
-        return tripMapper.toResponse(savedTrip);
+        TripResponse response = tripMapper.toResponse(savedTrip);
+        tripResponseCache.put(response);
+        return response;
     }
 
-    public List<TripResponse> getAllTrips() {
-        return tripRepository.findAll()
-                .stream()
-                .map(tripMapper::toResponse)
-                .toList();
+    // ░░░ LIST TRIPS (keyset pagination, newest first) ░░░
+    /**
+     * One page of trips matching the filters, read from the replica.
+     *
+     * Pages are cut on (created_at, id) rather than by offset, so every page
+     * costs the same index range scan however deep the client has scrolled,
+     * and rows inserted meanwhile do not shift later pages.
+     *
+     * @param cursor {@code nextCursor} of the previous page, null for the first
+     */
+    @Transactional(readOnly = true)
+    public TripPageResponse listTrips(UUID passengerId, UUID driverId, TripStatus status,
+                                      LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+
+        Specification<Trip> spec = TripSpecifications.matching(passengerId, driverId, status, from, to);
+        if (cursor != null && !cursor.isBlank()) {
+            TripCursor position;
+            try {
+                position = TripCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            spec = spec.and(TripSpecifications.before(position.createdAt(), position.id()));
+        }
+
+        // One extra row tells whether there is a next page without a COUNT
+        Specification<Trip> filter = spec;
+        long requiredLsn = passengerId != null ? writtenLsnStore.forPassenger(passengerId) : 0L;
+        List<Trip> rows = ReadConsistency.atLeast(requiredLsn, () -> tripRepository.findBy(filter, query -> query
+                .sortBy(TripSpecifications.NEWEST_FIRST)
+                .limit(pageSize + 1)
+                .all()));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<Trip> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Trip last = page.get(page.size() - 1);
+            nextCursor = new TripCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new TripPageResponse(page.stream().map(tripMapper::toResponse).toList(), nextCursor);
     }
 
-    @Transactional(readOnly = true)
+    // Polled by passenger apps; a cache hit opens no transaction, a miss reads the
+    // replica once it has replayed this trip's last write, the primary until then
     public Optional<TripResponse> getTripById(UUID id) {
-        return tripRepository.findById(id)
-                .map(tripMapper::toResponse);
+        return tripResponseCache.get(id, key -> ReadConsistency.atLeast(writtenLsnStore.forTrip(key),
+                () -> tripRepository.findById(key).map(tripMapper::toResponse)));
     }
 
     // ░░░ CANCEL TRIP + publish trip.cancelled ░░░
+    @Transactional
     public Optional<TripResponse> cancelTrip(UUID id, String cancelledBy) {
         return tripRepository.findById(id).map(trip -> {
 
@@ -122,6 +192,8 @@ public class TripService {
             trip.setUpdatedAt(LocalDateTime.now());
 
             Trip saved = tripRepository.save(trip);
+            tripStateCache.put(saved.getId(), TripStatus.CANCELLED);
+            writtenLsnStore.recordWrite(saved.getId(), saved.getPassengerId());
 
             TripCancelledEvent event = TripCancelledEvent.builder()
                     .tripId(saved.getId())
@@ -131,7 +203,9 @@ public class TripService {
 
             eventPublisher.publishTripCancelled(event);
 
-            return tripMapper.toResponse(saved);
+            TripResponse response = tripMapper.toResponse(saved);
+            tripResponseCache.put(response);
+            return response;
         });
     }
 
@@ -140,13 +214,16 @@ public class TripService {
      * Accept a trip with distributed lock and early state validation.
      * 
      * Flow:
-     * 1. Try to acquire SETNX lock with 5s TTL (atomic, prevents race)
-     * 2. Fetch trip and check if status is SEARCHING
-     * 3. Update DB to ASSIGNED status
-     * 4. Publish trip.assigned event
+     * 1. One Redis script: reject if the cached trip state is past SEARCHING,
+     * otherwise take the lock (5s TTL) and get a fencing token
+     * 2. One conditional UPDATE: assign only if the trip is still SEARCHING and
+     * no newer lease wrote it; the row count decides the outcome
+     * 3. Publish trip.assigned event
      * 
-     * IMPORTANT: Lock MUST be acquired BEFORE reading trip to prevent
-     * stale read race conditions.
+     * The DB statement alone is enough for correctness. The lock only keeps
+     * losing drivers away from PostgreSQL, so if Redis is unavailable the
+     * accept goes straight to the UPDATE. The lock is released when the
+     * transaction completes, on every path.
      * 
      * @param tripId   The trip to accept
      * @param driverId The driver accepting the trip
@@ -155,39 +232,35 @@ public class TripService {
     @Transactional
     public AcceptResult acceptTripWithLock(UUID tripId, UUID driverId) {
         // 1. Try to acquire lock FIRST (one-shot, no retry)
-        // This MUST happen before reading the trip to prevent race conditions
-        boolean acquired = lockService.tryAcquire(tripId, driverId, 5);
-        if (!acquired) {
+        long fencingToken = acquireAssignmentLock(tripId, driverId);
+        if (fencingToken == TripAssignmentLockService.TRIP_CLOSED
+                || fencingToken == TripAssignmentLockService.HELD_BY_OTHER) {
             return AcceptResult.ALREADY_ASSIGNED;
         }
-
-        // 2. Find trip (now protected by lock - we have exclusive access)
-        Optional<Trip> tripOpt = tripRepository.findById(tripId);
-        if (tripOpt.isEmpty()) {
-            return AcceptResult.TRIP_NOT_FOUND;
+        if (fencingToken > 0) {
+            releaseAfterCompletion(tripId, driverId, fencingToken);
         }
 
-        Trip trip = tripOpt.get();
-
-        // 3. State check - filter requests for already-assigned trips
-        if (trip.getTripStatus() != TripStatus.SEARCHING) {
-            return AcceptResult.ALREADY_ASSIGNED;
-        }
-
-        // 4. Update DB (fresh trip object, correct version)
-        try {
-            trip.setDriverId(driverId);
-            trip.setTripStatus(TripStatus.ASSIGNED);
-            trip.setAcceptedAt(LocalDateTime.now());
-            trip.setUpdatedAt(LocalDateTime.now());
-            tripRepository.saveAndFlush(trip);
-        } catch (StaleObjectStateException | ObjectOptimisticLockingFailureException e) {
-            // Another driver won the race at the DB level - return graceful conflict
-            log.warn("Optimistic lock conflict for trip {}: another driver assigned first", tripId);
+        // 2. Single conditional UPDATE - no read-modify-write, no version conflict to catch
+        int updated = tripRepository.assignIfSearching(tripId, driverId, Math.max(fencingToken, 0),
+                LocalDateTime.now());
+        if (updated == 0) {
+            // Losing path only: tell "not found" apart from "already taken"
+            Optional<TripStatus> status = tripRepository.findStatusById(tripId);
+            if (status.isEmpty()) {
+                return AcceptResult.TRIP_NOT_FOUND;
+            }
+            if (status.get() != TripStatus.SEARCHING) {
+                // Cache miss or expired entry - remember so the next attempts skip the DB
+                tripStateCache.put(tripId, status.get());
+            }
             return AcceptResult.ALREADY_ASSIGNED;
         }
+        tripStateCache.put(tripId, TripStatus.ASSIGNED);
+        tripResponseCache.invalidate(tripId);
+        writtenLsnStore.recordWrite(tripId, null);
 
-        // 5. Publish event for DriverService to notify via WebSocket
+        // 3. Publish event for DriverService to notify via WebSocket
         TripAssignedEvent event = new TripAssignedEvent();
         event.setTripId(tripId);
         event.setDriverId(driverId);
@@ -196,7 +269,36 @@ public class TripService {
         return AcceptResult.SUCCESS;
     }
 
+    /**
+     * @return the fencing token, {@link TripAssignmentLockService#HELD_BY_OTHER}
+     *         or {@link TripAssignmentLockService#TRIP_CLOSED}; {@link #NO_LOCK}
+     *         when Redis is unavailable
+     */
+    private long acquireAssignmentLock(UUID tripId, UUID driverId) {
+        try {
+            return lockService.tryAcquire(tripId, driverId, ASSIGNMENT_LOCK_TTL);
+        } catch (Exception e) {
+            log.warn("Assignment lock unavailable for trip {}, deciding in the database only", tripId, e);
+            return NO_LOCK;
+        }
+    }
+
+    private void releaseAfterCompletion(UUID tripId, UUID driverId, long fencingToken) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    lockService.release(tripId, driverId, fencingToken);
+                } catch (Exception e) {
+                    // The lock still expires on its own after its TTL
+                    log.warn("Failed to release assignment lock for trip {}", tripId, e);
+                }
+            }
+        });
+    }
+
     // ░░░ START TRIP + publish trip.started ░░░
+    @Transactional
     public Optional<TripResponse> startTrip(UUID id) {
         return tripRepository.findById(id).map(trip -> {
 
@@ -208,6 +310,8 @@ public class TripService {
             trip.setUpdatedAt(LocalDateTime.now());
 
             Trip saved = tripRepository.save(trip);
+            tripStateCache.put(saved.getId(), TripStatus.IN_PROGRESS);
+            writtenLsnStore.recordWrite(saved.getId(), saved.getPassengerId());
 
             TripStartedEvent event = TripStartedEvent.builder()
                     .tripId(saved.getId())
@@ -217,11 +321,14 @@ public class TripService {
 
             eventPublisher.publishTripStarted(event);
 
-            return tripMapper.toResponse(saved);
+            TripResponse response = tripMapper.toResponse(saved);
+            tripResponseCache.put(response);
+            return response;
         });
     }
 
     // ░░░ COMPLETE TRIP + publish trip.completed ░░░
+    @Transactional
     public Optional<TripResponse> completeTrip(UUID id) {
         return tripRepository.findById(id).map(trip -> {
 
@@ -235,6 +342,8 @@ public class TripService {
             trip.setFinalPrice(trip.getEstimatedPrice());
 
             Trip saved = tripRepository.save(trip);
+            tripStateCache.put(saved.getId(), TripStatus.COMPLETED);
+            writtenLsnStore.recordWrite(saved.getId(), saved.getPassengerId());
 
             TripCompletedEvent event = TripCompletedEvent.builder()
                     .tripId(saved.getId())
@@ -245,17 +354,25 @@ public class TripService {
 
             eventPublisher.publishTripCompleted(event);
 
-            return tripMapper.toResponse(saved);
+            TripResponse response = tripMapper.toResponse(saved);
+            tripResponseCache.put(response);
+            return response;
         });
     }
 
     // Utility update
+    @Transactional
     public Optional<TripResponse> updateStatus(UUID id, TripStatus status) {
         return tripRepository.findById(id).map(trip -> {
             trip.setTripStatus(status);
             trip.setUpdatedAt(LocalDateTime.now());
             Trip saved = tripRepository.save(trip);
-            return tripMapper.toResponse(saved);
+            tripStateCache.put(saved.getId(), status);
+            writtenLsnStore.recordWrite(saved.getId(), saved.getPassengerId());
+            eventPublisher.publishTripChanged(new TripChangedEvent(saved.getId()));
+            TripResponse response = tripMapper.toResponse(saved);
+            tripResponseCache.put(response);
+            return response;
         });
     }
 
@@ -283,55 +400,12 @@ public class TripService {
 
     // FARE CALCULATION
     public BigDecimal calculateFare(BigDecimal distanceKm, VehicleType type, boolean isPeakHour) {
-        BigDecimal baseFare;
-        BigDecimal perKmRate;
-
-        switch (type) {
-            case BIKE -> {
-                baseFare = BigDecimal.valueOf(5000);
-                perKmRate = BigDecimal.valueOf(7000);
-            }
-            case BIKE_ECONOMY -> {
-                baseFare = BigDecimal.valueOf(4000);
-                perKmRate = BigDecimal.valueOf(6000);
-            }
-            case CAR_4_SEAT -> {
-                baseFare = BigDecimal.valueOf(10000);
-                perKmRate = BigDecimal.valueOf(11000);
-            }
-            case CAR_7_SEAT -> {
-                baseFare = BigDecimal.valueOf(15000);
-                perKmRate = BigDecimal.valueOf(13000);
-            }
-            case CAR_ECONOMY -> {
-                baseFare = BigDecimal.valueOf(8000);
-                perKmRate = BigDecimal.valueOf(9500);
-            }
-            case CAR_ELECTRIC -> {
-                baseFare = BigDecimal.valueOf(9000);
-                perKmRate = BigDecimal.valueOf(10500);
-            }
-            case CAR_PREMIUM -> {
-                baseFare = BigDecimal.valueOf(20000);
-                perKmRate = BigDecimal.valueOf(16000);
-            }
-            default -> {
-                baseFare = BigDecimal.valueOf(8000);
-                perKmRate = BigDecimal.valueOf(9000);
-            }
-        }
-
-        BigDecimal fare = baseFare.add(perKmRate.multiply(distanceKm));
-
-        if (isPeakHour) {
-            fare = fare.multiply(BigDecimal.valueOf(1.25));
-        }
-
-        BigDecimal minimumFare = BigDecimal.valueOf(12000);
-        if (fare.compareTo(minimumFare) < 0) {
-            fare = minimumFare;
-        }
+        return fareEngine.fare(distanceKm, type, isPeakHour);
+    }
 
-        return fare.setScale(-2, RoundingMode.HALF_UP);
+    // Quotes read one pricing snapshot, so peak hours, rates and surge tiers come from the same version
+    private BigDecimal quote(PricingSnapshot pricing, BigDecimal distanceKm, VehicleType type, long surge) {
+        boolean peakHour = pricing.isPeakHour(LocalTime.now(pricing.zone()));
+        return fareEngine.fare(pricing, distanceKm, type, peakHour, surge);
     }
 }
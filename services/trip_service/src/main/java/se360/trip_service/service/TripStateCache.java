@@ -0,0 +1,78 @@
+package se360.trip_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se360.trip_service.model.enums.TripStatus;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Latest known status of each trip in Redis ({@code trip:state:<tripId>}).
+ *
+ * Written on every lifecycle transition, right where the matching trip.*
+ * event is published, so accept attempts on trips that are no longer
+ * SEARCHING can be rejected before a transaction or DB connection is opened.
+ * The cache is only ever used to reject: a missing key or a Redis error
+ * falls through to the normal locked DB path.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TripStateCache {
+
+    static final String KEY_PREFIX = "trip:state:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${trip.state-cache.ttl-minutes:120}")
+    private long ttlMinutes;
+
+    /**
+     * Record a transition. Inside a transaction the write is deferred until
+     * commit, so a rolled-back transition never becomes visible.
+     */
+    public void put(UUID tripId, TripStatus status) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(tripId, status);
+                }
+            });
+        } else {
+            write(tripId, status);
+        }
+    }
+
+    public Optional<TripStatus> get(UUID tripId) {
+        try {
+            String value = redisTemplate.opsForValue().get(KEY_PREFIX + tripId);
+            return Optional.ofNullable(value).map(TripStatus::valueOf);
+        } catch (Exception e) {
+            log.warn("Could not read cached state of trip {}", tripId, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return true if the trip is known to be past SEARCHING
+     */
+    public boolean isClosedForAccept(UUID tripId) {
+        return get(tripId).map(status -> status != TripStatus.SEARCHING).orElse(false);
+    }
+
+    private void write(UUID tripId, TripStatus status) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + tripId, status.name(), Duration.ofMinutes(ttlMinutes));
+        } catch (Exception e) {
+            log.warn("Could not cache state {} of trip {}", status, tripId, e);
+        }
+    }
+}
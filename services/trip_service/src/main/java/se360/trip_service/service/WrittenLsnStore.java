@@ -0,0 +1,118 @@
+package se360.trip_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se360.trip_service.config.ReplicaPool;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Primary WAL position after the last committed write to each trip and to
+ * each passenger's trips, in Redis ({@code lsn:written:trip:<id>},
+ * {@code lsn:written:passenger:<id>}), so it is known to every instance.
+ *
+ * Reads of the same trip or passenger require the replica to have replayed
+ * that position and go to the primary until it has. A passenger polling the
+ * trip they just created therefore never gets a 404 from a lagging replica.
+ * After {@code ttl-seconds} any replica position is accepted again. A missing
+ * key or a Redis error means no requirement.
+ */
+@Slf4j
+@Service
+public class WrittenLsnStore {
+
+    static final String TRIP_PREFIX = "lsn:written:trip:";
+    static final String PASSENGER_PREFIX = "lsn:written:passenger:";
+
+    private final StringRedisTemplate redisTemplate;
+    // The transaction-aware proxy, not the raw primary pool: in afterCommit the JPA
+    // transaction still holds its connection, and borrowing a second one per write
+    // drains the pool under load
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${trip.read-your-writes.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    public WrittenLsnStore(StringRedisTemplate redisTemplate, DataSource dataSource) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Record a write to a trip, and to its passenger's trips when
+     * {@code passengerId} is known. Inside a transaction the position is read
+     * after commit, when it covers the commit record, on the connection the
+     * transaction is still holding.
+     */
+    public void recordWrite(UUID tripId, UUID passengerId) {
+        List<String> keys = passengerId != null
+                ? List.of(TRIP_PREFIX + tripId, PASSENGER_PREFIX + passengerId)
+                : List.of(TRIP_PREFIX + tripId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(keys);
+                }
+            });
+        } else {
+            write(keys);
+        }
+    }
+
+    /**
+     * Record writes to several trips that have already been committed, with
+     * one position read and one Redis round trip.
+     */
+    public void recordWrites(Collection<UUID> tripIds) {
+        if (!tripIds.isEmpty()) {
+            write(tripIds.stream().map(tripId -> TRIP_PREFIX + tripId).toList());
+        }
+    }
+
+    public long forTrip(UUID tripId) {
+        return read(TRIP_PREFIX + tripId);
+    }
+
+    public long forPassenger(UUID passengerId) {
+        return read(PASSENGER_PREFIX + passengerId);
+    }
+
+    private void write(List<String> keys) {
+        try {
+            String lsn = Long.toString(ReplicaPool.currentPrimaryLsn(jdbcTemplate));
+            Expiration ttl = Expiration.seconds(ttlSeconds);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (String key : keys) {
+                    conn.set(key, lsn, ttl, SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Could not record the write position for {}", keys, e);
+        }
+    }
+
+    private long read(String key) {
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("Could not read write position {}", key, e);
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,3 @@
+-- Fencing token of the assignment lock lease that assigned the trip.
+-- A write carrying a lower token than the stored one comes from an expired lease and is rejected.
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS assignment_token BIGINT;
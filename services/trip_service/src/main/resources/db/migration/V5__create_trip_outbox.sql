@@ -0,0 +1,10 @@
+-- Transactional outbox: trip events are inserted in the same transaction as the trip change
+-- and relayed to RabbitMQ by TripOutboxRelay. Rows are deleted once the broker confirms them.
+CREATE TABLE IF NOT EXISTS trip_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    trip_id UUID NOT NULL,
+    routing_key VARCHAR(64) NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+    );
@@ -0,0 +1,10 @@
+-- Keyset pagination of the trip listing: ORDER BY created_at DESC, id DESC, optionally
+-- filtered by passenger or driver. The single-column indexes these supersede are dropped.
+CREATE INDEX IF NOT EXISTS idx_trips_created_at_id ON trips (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_trips_passenger_created_at_id ON trips (passenger_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_trips_driver_created_at_id ON trips (driver_id, created_at DESC, id DESC)
+    WHERE driver_id IS NOT NULL;
+
+DROP INDEX IF EXISTS idx_trips_created_at;
+DROP INDEX IF EXISTS idx_trips_passenger_id;
+DROP INDEX IF EXISTS idx_trips_driver_id;
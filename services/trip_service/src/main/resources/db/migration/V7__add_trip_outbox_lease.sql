@@ -0,0 +1,3 @@
+-- Rows are claimed by a relay with a short lease instead of a lock held while waiting for
+-- broker confirms; an expired lease (relay crashed or stalled) makes the row claimable again.
+ALTER TABLE trip_outbox ADD COLUMN IF NOT EXISTS leased_until TIMESTAMP;
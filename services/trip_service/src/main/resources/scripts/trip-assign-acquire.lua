@@ -0,0 +1,23 @@
+-- Take the assignment lock of a trip, unless the trip is already closed.
+--
+-- KEYS[1]  trip:state:<tripId>        cached trip status (see TripStateCache)
+-- KEYS[2]  lock:trip:assign:<tripId>  the lock, value "<owner>:<token>"
+-- KEYS[3]  lock:trip:assign:fence     global fencing token counter
+-- ARGV[1]  owner (driver id)
+-- ARGV[2]  lock TTL in milliseconds
+--
+-- Returns the fencing token (> 0) when the lock was taken,
+-- 0 when another owner holds it, -1 when the trip is no longer SEARCHING.
+
+local state = redis.call('GET', KEYS[1])
+if state and state ~= 'SEARCHING' then
+    return -1
+end
+
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return 0
+end
+
+local token = redis.call('INCR', KEYS[3])
+redis.call('SET', KEYS[2], ARGV[1] .. ':' .. token, 'PX', ARGV[2])
+return token
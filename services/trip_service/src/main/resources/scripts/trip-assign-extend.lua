@@ -0,0 +1,12 @@
+-- Extend an assignment lock, only if it is still held by the same lease.
+--
+-- KEYS[1]  lock:trip:assign:<tripId>
+-- ARGV[1]  "<owner>:<token>" as set on acquire
+-- ARGV[2]  new TTL in milliseconds
+--
+-- Returns 1 if extended, 0 if the lock had expired or belongs to someone else.
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
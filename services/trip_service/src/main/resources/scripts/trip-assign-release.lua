@@ -0,0 +1,11 @@
+-- Release an assignment lock, only if it is still held by the same lease.
+--
+-- KEYS[1]  lock:trip:assign:<tripId>
+-- ARGV[1]  "<owner>:<token>" as set on acquire
+--
+-- Returns 1 if released, 0 if the lock had expired or belongs to someone else.
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,224 @@
+package se360.trip_service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the pool against an embedded PostgreSQL that plays primary and every
+ * replica; a server that is not in recovery reports its own WAL end as the
+ * replay position, so it is always caught up with itself. Replicas can be
+ * taken down by failing their connections.
+ */
+class ReplicaPoolTest {
+
+    private static EmbeddedPostgres postgres;
+
+    private final Map<String, SwitchableDataSource> replicas = new LinkedHashMap<>();
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaPool pool;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @AfterEach
+    void stopPool() {
+        pool.stop();
+    }
+
+    @Test
+    void caughtUpReplicaServesReadsOfCommittedWrites() {
+        pool = pool(ReplicaProperties.Balancing.LEAST_OUTSTANDING, replica("a", 1));
+        JdbcTemplate jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbc.execute("CREATE TABLE IF NOT EXISTS lsn_probe (id int)");
+        jdbc.update("INSERT INTO lsn_probe VALUES (1)");
+        long written = ReplicaPool.currentPrimaryLsn(jdbc);
+
+        pollAll();
+
+        assertThat(written).isPositive();
+        assertThat(pool.route(written)).isEqualTo("a");
+    }
+
+    @Test
+    void readsAheadOfEveryReplicaGoToThePrimary() {
+        pool = pool(ReplicaProperties.Balancing.LEAST_OUTSTANDING, replica("a", 1), replica("b", 1));
+        pollAll();
+
+        assertThat(pool.route(Long.MAX_VALUE)).isEqualTo(ReplicationRoutingDataSource.PRIMARY);
+        assertThat(meterRegistry.get("trip.datasource.reads").tag("target", "primary").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void replicaIsSkippedUntilItHasBeenPolled() {
+        pool = pool(ReplicaProperties.Balancing.LEAST_OUTSTANDING, replica("a", 1));
+
+        assertThat(pool.route(0)).isEqualTo(ReplicationRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void withoutReplicasEveryReadGoesToThePrimary() {
+        pool = pool(ReplicaProperties.Balancing.WEIGHTED_ROUND_ROBIN);
+        pollAll();
+
+        assertThat(pool.route(0)).isEqualTo(ReplicationRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void staleReplayPositionIsNotTrusted() throws Exception {
+        ReplicaProperties properties = properties(ReplicaProperties.Balancing.LEAST_OUTSTANDING, replica("a", 1));
+        properties.setMaxStalenessMs(1);
+        pool = pool(properties);
+        pollAll();
+
+        Thread.sleep(5);
+
+        assertThat(pool.route(0)).isEqualTo(ReplicationRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void weightedRoundRobinSplitsReadsByWeight() {
+        pool = pool(ReplicaProperties.Balancing.WEIGHTED_ROUND_ROBIN, replica("a", 3), replica("b", 1));
+        pollAll();
+
+        Map<String, Integer> reads = new HashMap<>();
+        for (int i = 0; i < 400; i++) {
+            reads.merge(pool.route(0), 1, Integer::sum);
+        }
+
+        assertThat(reads).containsEntry("a", 300).containsEntry("b", 100);
+    }
+
+    @Test
+    void leastOutstandingSharesIdleReplicas() {
+        pool = pool(ReplicaProperties.Balancing.LEAST_OUTSTANDING, replica("a", 1), replica("b", 1));
+        pollAll();
+
+        Map<String, Integer> reads = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            reads.merge(pool.route(0), 1, Integer::sum);
+        }
+
+        assertThat(reads).containsEntry("a", 50).containsEntry("b", 50);
+    }
+
+    @Test
+    void failingReplicaIsRemovedAndReadmittedAfterRecovering() {
+        ReplicaProperties properties = properties(ReplicaProperties.Balancing.LEAST_OUTSTANDING,
+                replica("a", 1), replica("b", 1));
+        properties.setFailureThreshold(2);
+        properties.setRecoveryThreshold(2);
+        pool = pool(properties);
+        pollAll();
+        pollAll();
+
+        replicas.get("a").down = true;
+        pollAll();
+        assertThat(admitted("a")).isEqualTo(1.0);
+        pollAll();
+        assertThat(admitted("a")).isZero();
+        for (int i = 0; i < 10; i++) {
+            assertThat(pool.route(0)).isEqualTo("b");
+        }
+
+        replicas.get("a").down = false;
+        pollAll();
+        assertThat(admitted("a")).isZero();
+        pollAll();
+        assertThat(admitted("a")).isEqualTo(1.0);
+    }
+
+    private double admitted(String replica) {
+        return meterRegistry.get("trip.datasource.replica.admitted").tag("replica", replica).gauge().value();
+    }
+
+    private void pollAll() {
+        // Same order every time; the pool's own tasks are not running
+        for (String name : replicas.keySet()) {
+            pool.poll(nodeNamed(name));
+        }
+    }
+
+    private ReplicaNode nodeNamed(String name) {
+        @SuppressWarnings("unchecked")
+        List<ReplicaNode> nodes = (List<ReplicaNode>) ReflectionTestUtils
+                .getField(pool, "nodes");
+        return nodes.stream().filter(node -> node.name.equals(name)).findFirst().orElseThrow();
+    }
+
+    private static ReplicaProperties.Replica replica(String name, int weight) {
+        ReplicaProperties.Replica replica = new ReplicaProperties.Replica();
+        replica.setName(name);
+        replica.setWeight(weight);
+        return replica;
+    }
+
+    private static ReplicaProperties properties(ReplicaProperties.Balancing balancing,
+                                                ReplicaProperties.Replica... replicas) {
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setBalancing(balancing);
+        properties.setReplicas(List.of(replicas));
+        // Polls are driven by the tests
+        properties.setLsnPollMs(3_600_000L);
+        properties.setMaxStalenessMs(60_000L);
+        properties.setFailureThreshold(1);
+        properties.setRecoveryThreshold(1);
+        return properties;
+    }
+
+    private ReplicaPool pool(ReplicaProperties.Balancing balancing, ReplicaProperties.Replica... replicas) {
+        return pool(properties(balancing, replicas));
+    }
+
+    private ReplicaPool pool(ReplicaProperties properties) {
+        meterRegistry = new SimpleMeterRegistry();
+        ReplicaPool created = new ReplicaPool(postgres.getPostgresDatabase(), properties, meterRegistry, replica -> {
+            SwitchableDataSource dataSource = new SwitchableDataSource(postgres.getPostgresDatabase());
+            replicas.put(replica.getName(), dataSource);
+            return dataSource;
+        });
+        created.start();
+        return created;
+    }
+
+    private static final class SwitchableDataSource extends DelegatingDataSource {
+
+        volatile boolean down;
+
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Replica is down");
+            }
+            return super.getConnection();
+        }
+    }
+}
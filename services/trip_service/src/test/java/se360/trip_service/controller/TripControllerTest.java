@@ -0,0 +1,59 @@
+package se360.trip_service.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import se360.trip_service.model.dtos.AcceptTripRequest;
+import se360.trip_service.model.enums.AcceptResult;
+import se360.trip_service.service.TripService;
+import se360.trip_service.service.TripStateCache;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * The accept fast path only ever rejects; anything it does not know about
+ * goes to the locked DB path.
+ */
+class TripControllerTest {
+
+    private static final UUID TRIP_ID = UUID.randomUUID();
+    private static final UUID DRIVER_ID = UUID.randomUUID();
+
+    private final TripService tripService = mock(TripService.class);
+    private final TripStateCache tripStateCache = mock(TripStateCache.class);
+    private final TripController controller = new TripController(tripService, tripStateCache);
+
+    @Test
+    void closedTripIsRejectedWithoutTouchingTheService() {
+        when(tripStateCache.isClosedForAccept(TRIP_ID)).thenReturn(true);
+
+        ResponseEntity<AcceptResult> response = controller.acceptTrip(TRIP_ID, request());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isEqualTo(AcceptResult.ALREADY_ASSIGNED);
+        verifyNoInteractions(tripService);
+    }
+
+    @Test
+    void cacheMissFallsThroughToTheLockedPath() {
+        when(tripStateCache.isClosedForAccept(TRIP_ID)).thenReturn(false);
+        when(tripService.acceptTripWithLock(TRIP_ID, DRIVER_ID)).thenReturn(AcceptResult.SUCCESS);
+
+        ResponseEntity<AcceptResult> response = controller.acceptTrip(TRIP_ID, request());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(tripService).acceptTripWithLock(TRIP_ID, DRIVER_ID);
+    }
+
+    private static AcceptTripRequest request() {
+        AcceptTripRequest request = new AcceptTripRequest();
+        request.setDriverId(DRIVER_ID);
+        return request;
+    }
+}
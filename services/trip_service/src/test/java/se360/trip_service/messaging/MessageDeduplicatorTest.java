@@ -0,0 +1,93 @@
+package se360.trip_service.messaging;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the dedup store against an embedded Redis.
+ */
+class MessageDeduplicatorTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private MessageDeduplicator deduplicator;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        deduplicator = new MessageDeduplicator(redisTemplate);
+        ReflectionTestUtils.setField(deduplicator, "ttlMinutes", 60L);
+    }
+
+    @Test
+    void handledIdsAreSkipped() {
+        assertThat(deduplicator.unseen("c", List.of("m1", "m2"))).containsExactlyInAnyOrder("m1", "m2");
+        deduplicator.markSeen("c", List.of("m1", "m2"));
+
+        assertThat(deduplicator.unseen("c", List.of("m2", "m3"))).containsExactly("m3");
+        assertThat(redisTemplate.getExpire(MessageDeduplicator.KEY_PREFIX + "c:m1")).isPositive();
+    }
+
+    @Test
+    void consumersDeduplicateIndependently() {
+        deduplicator.markSeen("a", List.of("m1"));
+
+        assertThat(deduplicator.unseen("b", List.of("m1"))).containsExactly("m1");
+    }
+
+    @Test
+    void idIsNotSkippedUntilItsWorkSucceeded() {
+        // Checked, then the consumer died before marking it: the redelivery must be processed
+        deduplicator.unseen("c", List.of("m1"));
+
+        assertThat(deduplicator.unseen("c", List.of("m1"))).containsExactly("m1");
+    }
+
+    @Test
+    void everythingCountsAsNewWhenRedisIsDown() {
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory("localhost", 1);
+        unreachable.afterPropertiesSet();
+        StringRedisTemplate template = new StringRedisTemplate(unreachable);
+        template.afterPropertiesSet();
+        MessageDeduplicator offline = new MessageDeduplicator(template);
+
+        assertThat(offline.unseen("c", List.of("m1", "m2"))).containsExactlyInAnyOrder("m1", "m2");
+        offline.markSeen("c", List.of("m1"));
+        unreachable.destroy();
+    }
+}
@@ -0,0 +1,84 @@
+package se360.trip_service.messaging.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import se360.trip_service.messaging.MessageDeduplicator;
+import se360.trip_service.messaging.events.TripAssignedEvent;
+import se360.trip_service.messaging.events.TripChangedEvent;
+import se360.trip_service.messaging.publisher.TripEventPublisher;
+import se360.trip_service.repository.TripRepository;
+import se360.trip_service.service.TripResponseCache;
+import se360.trip_service.service.TripStateCache;
+import se360.trip_service.service.WrittenLsnStore;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TripAssignedListenerTest {
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final MessageDeduplicator deduplicator = mock(MessageDeduplicator.class);
+    private final TripEventPublisher eventPublisher = mock(TripEventPublisher.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private TripAssignedListener listener;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        listener = new TripAssignedListener(tripRepository, mock(TripStateCache.class), mock(TripResponseCache.class),
+                mock(WrittenLsnStore.class), deduplicator, eventPublisher, transactionManager, new SimpleMeterRegistry());
+        listener.init();
+    }
+
+    @Test
+    void assignmentIsAnnouncedFromTheUpdatesTransaction() {
+        UUID assigned = UUID.randomUUID();
+        UUID alreadyTaken = UUID.randomUUID();
+        when(deduplicator.unseen(any(), anyList())).thenReturn(Set.of("m1", "m2"));
+        when(tripRepository.assignAllIfSearching(any(), any(), any())).thenReturn(List.of(assigned));
+
+        listener.handleTripAssigned(List.of(message("m1", assigned), message("m2", alreadyTaken)));
+
+        InOrder order = inOrder(transactionManager, tripRepository, eventPublisher, deduplicator);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(tripRepository).assignAllIfSearching(any(), any(), any());
+        order.verify(eventPublisher).publishTripChanged(new TripChangedEvent(assigned));
+        order.verify(transactionManager).commit(any());
+        order.verify(deduplicator).markSeen(any(), eq(Set.of("m1", "m2")));
+        verify(eventPublisher, never()).publishTripChanged(new TripChangedEvent(alreadyTaken));
+    }
+
+    @Test
+    void redeliveredBatchIsNotAnnouncedAgain() {
+        when(deduplicator.unseen(any(), anyList())).thenReturn(Set.of());
+
+        listener.handleTripAssigned(List.of(message("m1", UUID.randomUUID())));
+
+        verify(transactionManager, never()).getTransaction(any());
+        verify(eventPublisher, never()).publishTripChanged(any());
+    }
+
+    private static Message<TripAssignedEvent> message(String messageId, UUID tripId) {
+        TripAssignedEvent event = new TripAssignedEvent();
+        event.setTripId(tripId);
+        event.setDriverId(UUID.randomUUID());
+        return MessageBuilder.withPayload(event).setHeader(AmqpHeaders.MESSAGE_ID, messageId).build();
+    }
+}
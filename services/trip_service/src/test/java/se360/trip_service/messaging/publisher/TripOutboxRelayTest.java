@@ -0,0 +1,215 @@
+package se360.trip_service.messaging.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se360.trip_service.EmbeddedPostgresConfig;
+import se360.trip_service.messaging.RabbitMQConfiguration;
+import se360.trip_service.messaging.events.TripCancelledEvent;
+import se360.trip_service.messaging.events.TripRequestedEvent;
+import se360.trip_service.model.entities.OutboxEvent;
+import se360.trip_service.repository.OutboxEventRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Outbox write and relay against a real PostgreSQL. The relay's scheduler is
+ * disabled, so "the service crashed before publishing" is simply committed
+ * rows that nobody has relayed yet; the broker is a mock that confirms.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, TripEventPublisher.class, TripOutboxRelay.class,
+        TripOutboxRelayTest.Config.class})
+@TestPropertySource(properties = {"trip.outbox.relay.enabled=false", "trip.outbox.batch-size=10"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TripOutboxRelayTest {
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        MessageConverter jsonMessageConverter() {
+            return new Jackson2JsonMessageConverter();
+        }
+    }
+
+    @MockitoBean
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private TripEventPublisher publisher;
+
+    @Autowired
+    private TripOutboxRelay relay;
+
+    @Autowired
+    private OutboxEventRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void clearOutbox() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void eventCommittedBeforeCrashIsSentAfterRestart() {
+        UUID tripId = UUID.randomUUID();
+        inTransaction(() -> publisher.publishTripRequested(requested(tripId)));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        long lagSamples = meterRegistry.get("trip.outbox.lag").timer().count();
+        ackSends(Integer.MAX_VALUE);
+        assertThat(relay.relayBatch()).isEqualTo(1);
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfiguration.EXCHANGE), eq(RabbitMQConfiguration.ROUTING_KEY),
+                sent.capture(), any(CorrelationData.class));
+        assertThat(new String(sent.getValue().getBody(), StandardCharsets.UTF_8)).contains(tripId.toString());
+        assertThat(sent.getValue().getMessageProperties().getContentType()).isEqualTo("application/json");
+        assertThat(sent.getValue().getMessageProperties().getMessageId()).startsWith("trip-outbox-");
+        assertThat((String) sent.getValue().getMessageProperties()
+                .getHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME))
+                .isEqualTo(TripRequestedEvent.class.getName());
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(meterRegistry.get("trip.outbox.lag").timer().count()).isEqualTo(lagSamples + 1);
+    }
+
+    @Test
+    void rolledBackChangeLeavesNoEvent() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            publisher.publishTripRequested(requested(UUID.randomUUID()));
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void unconfirmedEventsStayForTheNextPass() {
+        inTransaction(() -> {
+            publisher.publishTripRequested(requested(UUID.randomUUID()));
+            publisher.publishTripCancelled(TripCancelledEvent.builder().tripId(UUID.randomUUID()).build());
+        });
+
+        ackSends(1);
+        assertThat(relay.relayBatch()).isEqualTo(1);
+        assertThat(outboxRepository.findAll())
+                .singleElement()
+                .satisfies(event -> assertThat(event.getRoutingKey()).isEqualTo("trip.cancelled"));
+
+        ackSends(Integer.MAX_VALUE);
+        assertThat(relay.relayBatch()).isEqualTo(1);
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void brokerIsNotAwaitedInsideATransaction() {
+        inTransaction(() -> publisher.publishTripRequested(requested(UUID.randomUUID())));
+        AtomicBoolean sentInTransaction = new AtomicBoolean();
+        doAnswer(invocation -> {
+            sentInTransaction.set(TransactionSynchronizationManager.isActualTransactionActive());
+            CorrelationData correlation = invocation.getArgument(3);
+            correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        assertThat(relay.relayBatch()).isEqualTo(1);
+        assertThat(sentInTransaction).isFalse();
+    }
+
+    @Test
+    void leasedEventsAreNotClaimedByAnotherRelay() {
+        inTransaction(() -> publisher.publishTripRequested(requested(UUID.randomUUID())));
+
+        assertThat(claim()).hasSize(1);
+        assertThat(claim()).isEmpty();
+    }
+
+    @Test
+    void expiredLeaseIsClaimedAgain() {
+        inTransaction(() -> publisher.publishTripRequested(requested(UUID.randomUUID())));
+
+        List<OutboxEvent> expired = new TransactionTemplate(transactionManager)
+                .execute(status -> outboxRepository.claimNextBatch(10, -1));
+        assertThat(expired).hasSize(1);
+        assertThat(claim()).hasSize(1);
+    }
+
+    @Test
+    void publishingOutsideTransactionIsRejected() {
+        assertThatThrownBy(() -> publisher.publishTripRequested(requested(UUID.randomUUID())))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    private List<OutboxEvent> claim() {
+        return new TransactionTemplate(transactionManager).execute(status -> outboxRepository.claimNextBatch(10, 30));
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+
+    // The first `acks` sends are confirmed, later ones nacked
+    private void ackSends(int acks) {
+        AtomicInteger sends = new AtomicInteger();
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            boolean ack = sends.incrementAndGet() <= acks;
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "test nack"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static TripRequestedEvent requested(UUID tripId) {
+        return TripRequestedEvent.builder()
+                .tripId(tripId)
+                .passengerId(UUID.randomUUID())
+                .vehicleType("CAR_4_SEAT")
+                .build();
+    }
+}
@@ -0,0 +1,175 @@
+package se360.trip_service.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
+import se360.trip_service.EmbeddedPostgresConfig;
+import se360.trip_service.model.entities.Trip;
+import se360.trip_service.model.enums.TripStatus;
+import se360.trip_service.model.enums.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repository queries against a real PostgreSQL (embedded), migrated by Flyway.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+class TripRepositoryTest {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void assignsSearchingTripExactlyOnce() {
+        Trip trip = searchingTrip();
+        UUID driverA = UUID.randomUUID();
+        UUID driverB = UUID.randomUUID();
+
+        int first = tripRepository.assignIfSearching(trip.getId(), driverA, 7, LocalDateTime.now());
+        int second = tripRepository.assignIfSearching(trip.getId(), driverB, 8, LocalDateTime.now());
+        entityManager.clear();
+
+        Trip assigned = tripRepository.findById(trip.getId()).orElseThrow();
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(assigned.getTripStatus()).isEqualTo(TripStatus.ASSIGNED);
+        assertThat(assigned.getDriverId()).isEqualTo(driverA);
+        assertThat(assigned.getAssignmentToken()).isEqualTo(7);
+        assertThat(assigned.getVersion()).isEqualTo(trip.getVersion() + 1);
+        assertThat(assigned.getAcceptedAt()).isNotNull();
+    }
+
+    @Test
+    void rejectsWriteFromOlderLease() {
+        Trip trip = searchingTrip();
+        trip.setAssignmentToken(10L);
+        tripRepository.saveAndFlush(trip);
+
+        assertThat(tripRepository.assignIfSearching(trip.getId(), UUID.randomUUID(), 9, LocalDateTime.now()))
+                .isZero();
+        assertThat(tripRepository.assignIfSearching(trip.getId(), UUID.randomUUID(), 11, LocalDateTime.now()))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void withoutLockOnlyStatusDecides() {
+        Trip trip = searchingTrip();
+        trip.setAssignmentToken(10L);
+        tripRepository.saveAndFlush(trip);
+
+        assertThat(tripRepository.assignIfSearching(trip.getId(), UUID.randomUUID(), 0, LocalDateTime.now()))
+                .isEqualTo(1);
+        assertThat(tripRepository.assignIfSearching(trip.getId(), UUID.randomUUID(), 0, LocalDateTime.now()))
+                .isZero();
+        entityManager.clear();
+        assertThat(tripRepository.findById(trip.getId()).orElseThrow().getAssignmentToken()).isEqualTo(10);
+    }
+
+    @Test
+    void findsStatusWithoutLoadingTheTrip() {
+        Trip trip = searchingTrip();
+
+        assertThat(tripRepository.findStatusById(trip.getId())).contains(TripStatus.SEARCHING);
+        assertThat(tripRepository.findStatusById(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    void assignsBatchInOneStatementSkippingClosedTrips() {
+        Trip first = searchingTrip();
+        Trip second = searchingTrip();
+        Trip cancelled = searchingTrip();
+        cancelled.setTripStatus(TripStatus.CANCELLED);
+        tripRepository.saveAndFlush(cancelled);
+        UUID driverA = UUID.randomUUID();
+        UUID driverB = UUID.randomUUID();
+
+        List<UUID> assigned = tripRepository.assignAllIfSearching(
+                new UUID[] {first.getId(), second.getId(), cancelled.getId()},
+                new UUID[] {driverA, driverB, UUID.randomUUID()},
+                LocalDateTime.now());
+        entityManager.clear();
+
+        assertThat(assigned).containsExactlyInAnyOrder(first.getId(), second.getId());
+        assertThat(tripRepository.findById(first.getId()).orElseThrow().getDriverId()).isEqualTo(driverA);
+        assertThat(tripRepository.findById(second.getId()).orElseThrow().getDriverId()).isEqualTo(driverB);
+        assertThat(tripRepository.findById(cancelled.getId()).orElseThrow().getTripStatus())
+                .isEqualTo(TripStatus.CANCELLED);
+    }
+
+    @Test
+    void keysetPagesWalkEveryMatchingTripOnceNewestFirst() {
+        UUID passengerId = UUID.randomUUID();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<Trip> trips = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Trip trip = searchingTrip();
+            trip.setPassengerId(passengerId);
+            // Two trips share a timestamp so the id tie-break is exercised
+            trip.setCreatedAt(base.plusMinutes(Math.min(i, 3)));
+            trips.add(tripRepository.saveAndFlush(trip));
+        }
+        searchingTrip(); // another passenger
+
+        Specification<Trip> filter = TripSpecifications.matching(passengerId, null, null, null, null);
+        List<UUID> seen = new ArrayList<>();
+        Trip last = null;
+        for (int page = 0; page < 3; page++) {
+            Specification<Trip> spec = last == null ? filter
+                    : filter.and(TripSpecifications.before(last.getCreatedAt(), last.getId()));
+            List<Trip> rows = tripRepository.findBy(spec, query -> query
+                    .sortBy(TripSpecifications.NEWEST_FIRST).limit(2).all());
+            rows.forEach(trip -> seen.add(trip.getId()));
+            last = rows.isEmpty() ? last : rows.get(rows.size() - 1);
+        }
+
+        assertThat(seen).hasSize(5).doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(trips.stream().map(Trip::getId).toList());
+        assertThat(tripRepository.findById(seen.get(0)).orElseThrow().getCreatedAt()).isEqualTo(base.plusMinutes(3));
+    }
+
+    @Test
+    void filtersByStatusAndTimeRange() {
+        LocalDateTime base = LocalDateTime.of(2025, 2, 1, 8, 0);
+        Trip early = searchingTrip();
+        early.setCreatedAt(base);
+        tripRepository.saveAndFlush(early);
+        Trip late = searchingTrip();
+        late.setCreatedAt(base.plusHours(2));
+        late.setTripStatus(TripStatus.CANCELLED);
+        tripRepository.saveAndFlush(late);
+
+        assertThat(tripRepository.findAll(TripSpecifications.matching(null, null, TripStatus.CANCELLED,
+                base, base.plusDays(1)))).extracting(Trip::getId).containsExactly(late.getId());
+        assertThat(tripRepository.findAll(TripSpecifications.matching(null, null, null,
+                base, base.plusHours(1)))).extracting(Trip::getId).containsExactly(early.getId());
+    }
+
+    private Trip searchingTrip() {
+        Trip trip = new Trip();
+        trip.setPassengerId(UUID.randomUUID());
+        trip.setPickupLat(new BigDecimal("10.776900"));
+        trip.setPickupLng(new BigDecimal("106.700900"));
+        trip.setPickupAddress("pickup");
+        trip.setDropoffLat(new BigDecimal("10.800000"));
+        trip.setDropoffLng(new BigDecimal("106.650000"));
+        trip.setDropoffAddress("dropoff");
+        trip.setVehicleType(VehicleType.CAR_4_SEAT);
+        trip.setTripStatus(TripStatus.SEARCHING);
+        return tripRepository.saveAndFlush(trip);
+    }
+}
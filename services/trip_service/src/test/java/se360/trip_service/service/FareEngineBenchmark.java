@@ -0,0 +1,136 @@
+package se360.trip_service.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se360.trip_service.model.enums.VehicleType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FareEngine} against the BigDecimal formula it replaced, on distances
+ * as DistanceUtil produces them (2 decimals).
+ *
+ * Not run by the build. Run from the IDE via {@link #main}, or after
+ * {@code mvn test-compile}:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     se360.trip_service.service.FareEngineBenchmark
+ * </pre>
+ *
+ * Add {@code -prof gc} (via {@code org.openjdk.jmh.Main}) to compare
+ * allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FareEngineBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final FareEngine engine = new FareEngine(PricingRulesTest.load("classpath:pricing.json"));
+    private final BigDecimal[] distances = new BigDecimal[SAMPLES];
+    private final long[] hundredthsKm = new long[SAMPLES];
+    private final VehicleType[] types = new VehicleType[SAMPLES];
+    private final boolean[] peak = new boolean[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            hundredthsKm[i] = random.nextInt(1, 5_000);
+            distances[i] = BigDecimal.valueOf(hundredthsKm[i], 2);
+            types[i] = VehicleType.values()[random.nextInt(VehicleType.values().length)];
+            peak[i] = random.nextBoolean();
+        }
+    }
+
+    @Benchmark
+    public BigDecimal fareEngine() {
+        int i = next++ & (SAMPLES - 1);
+        return engine.fare(distances[i], types[i], peak[i]);
+    }
+
+    @Benchmark
+    public long fareEngineUnscaled() {
+        int i = next++ & (SAMPLES - 1);
+        return engine.fare(hundredthsKm[i], 2, types[i], peak[i]);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalFormula() {
+        int i = next++ & (SAMPLES - 1);
+        return legacyFare(distances[i], types[i], peak[i]);
+    }
+
+    // TripService.calculateFare before the fare engine
+    private static BigDecimal legacyFare(BigDecimal distanceKm, VehicleType type, boolean isPeakHour) {
+        BigDecimal baseFare;
+        BigDecimal perKmRate;
+        switch (type) {
+            case BIKE -> {
+                baseFare = BigDecimal.valueOf(5000);
+                perKmRate = BigDecimal.valueOf(7000);
+            }
+            case BIKE_ECONOMY -> {
+                baseFare = BigDecimal.valueOf(4000);
+                perKmRate = BigDecimal.valueOf(6000);
+            }
+            case CAR_4_SEAT -> {
+                baseFare = BigDecimal.valueOf(10000);
+                perKmRate = BigDecimal.valueOf(11000);
+            }
+            case CAR_7_SEAT -> {
+                baseFare = BigDecimal.valueOf(15000);
+                perKmRate = BigDecimal.valueOf(13000);
+            }
+            case CAR_ECONOMY -> {
+                baseFare = BigDecimal.valueOf(8000);
+                perKmRate = BigDecimal.valueOf(9500);
+            }
+            case CAR_ELECTRIC -> {
+                baseFare = BigDecimal.valueOf(9000);
+                perKmRate = BigDecimal.valueOf(10500);
+            }
+            case CAR_PREMIUM -> {
+                baseFare = BigDecimal.valueOf(20000);
+                perKmRate = BigDecimal.valueOf(16000);
+            }
+            default -> {
+                baseFare = BigDecimal.valueOf(8000);
+                perKmRate = BigDecimal.valueOf(9000);
+            }
+        }
+        BigDecimal fare = baseFare.add(perKmRate.multiply(distanceKm));
+        if (isPeakHour) {
+            fare = fare.multiply(BigDecimal.valueOf(1.25));
+        }
+        BigDecimal minimumFare = BigDecimal.valueOf(12000);
+        if (fare.compareTo(minimumFare) < 0) {
+            fare = minimumFare;
+        }
+        return fare.setScale(-2, RoundingMode.HALF_UP);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FareEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,193 @@
+package se360.trip_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import se360.trip_service.model.enums.VehicleType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FareEngineTest {
+
+    private final PricingRules pricingRules = PricingRulesTest.load("classpath:pricing.json");
+    private final FareEngine engine = new FareEngine(pricingRules);
+
+    // Expected values were produced by the BigDecimal implementation this engine replaced
+    @ParameterizedTest
+    @CsvSource({
+            "2.35, BIKE, false, 21500",
+            "2.35, BIKE, true, 26800",
+            "12.34, BIKE, false, 91400",
+            "12.34, BIKE, true, 114200",
+            "0, BIKE, false, 12000",
+            "0, BIKE, true, 12000",
+            "1.004, BIKE, false, 12000",
+            "1.004, BIKE, true, 15000",
+            "1.05, BIKE, false, 12400",
+            "1.05, BIKE, true, 15400",
+            "1.07, BIKE, false, 12500",
+            "1.07, BIKE, true, 15600",
+            "0.0125, BIKE, false, 12000",
+            "0.0125, BIKE, true, 12000",
+            "-3, BIKE, false, 12000",
+            "-3, BIKE, true, 12000",
+            "1E+1, BIKE, false, 75000",
+            "1E+1, BIKE, true, 93800",
+            "999999.99, BIKE, false, 7000004900",
+            "999999.99, BIKE, true, 8750006200",
+            "2.35, BIKE_ECONOMY, false, 18100",
+            "2.35, BIKE_ECONOMY, true, 22600",
+            "12.34, BIKE_ECONOMY, false, 78000",
+            "12.34, BIKE_ECONOMY, true, 97600",
+            "2.35, CAR_4_SEAT, false, 35900",
+            "2.35, CAR_4_SEAT, true, 44800",
+            "12.34, CAR_4_SEAT, false, 145700",
+            "12.34, CAR_4_SEAT, true, 182200",
+            "2.35, CAR_7_SEAT, false, 45600",
+            "2.35, CAR_7_SEAT, true, 56900",
+            "12.34, CAR_7_SEAT, false, 175400",
+            "12.34, CAR_7_SEAT, true, 219300",
+            "2.35, CAR_ECONOMY, false, 30300",
+            "2.35, CAR_ECONOMY, true, 37900",
+            "12.34, CAR_ECONOMY, false, 125200",
+            "12.34, CAR_ECONOMY, true, 156500",
+            "2.35, CAR_ELECTRIC, false, 33700",
+            "2.35, CAR_ELECTRIC, true, 42100",
+            "12.34, CAR_ELECTRIC, false, 138600",
+            "12.34, CAR_ELECTRIC, true, 173200",
+            "2.35, CAR_PREMIUM, false, 57600",
+            "2.35, CAR_PREMIUM, true, 72000",
+            "12.34, CAR_PREMIUM, false, 217400",
+            "12.34, CAR_PREMIUM, true, 271800"
+    })
+    void goldenFares(String distanceKm, VehicleType type, boolean peakHour, String expected) {
+        BigDecimal fare = engine.fare(new BigDecimal(distanceKm), type, peakHour);
+
+        assertThat(fare).isEqualByComparingTo(expected);
+        assertThat(fare.scale()).isEqualTo(-2);
+    }
+
+    @Test
+    void matchesTheBigDecimalFormulaOnRandomDistances() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int scale = random.nextInt(12) - 1;
+            BigDecimal distanceKm = BigDecimal.valueOf(random.nextLong(-1_000_000, 100_000_000_000L), scale);
+            VehicleType type = VehicleType.values()[random.nextInt(VehicleType.values().length)];
+            boolean peakHour = random.nextBoolean();
+
+            assertThat(engine.fare(distanceKm, type, peakHour))
+                    .as("%s km, %s, peak %s", distanceKm, type, peakHour)
+                    .isEqualTo(legacyFare(distanceKm, type, peakHour));
+        }
+    }
+
+    @Test
+    void hugeDistancesFallBackToBigDecimal() {
+        BigDecimal distanceKm = new BigDecimal("123456789012345678.9");
+
+        assertThat(engine.fare(distanceKm, VehicleType.CAR_PREMIUM, true))
+                .isEqualTo(legacyFare(distanceKm, VehicleType.CAR_PREMIUM, true));
+    }
+
+    @Test
+    void surgeMultipliesBeforeTheMinimumAndRounding() {
+        PricingSnapshot pricing = pricingRules.current();
+        BigDecimal distanceKm = new BigDecimal("2.35");
+
+        // (10000 + 11000 * 2.35) * 1.5 = 53775
+        assertThat(engine.fare(pricing, distanceKm, VehicleType.CAR_4_SEAT, false, 15_000))
+                .isEqualByComparingTo("53800");
+        // (10000 + 11000 * 2.35) * 1.25 * 1.5 = 67218.75
+        assertThat(engine.fare(pricing, distanceKm, VehicleType.CAR_4_SEAT, true, 15_000))
+                .isEqualByComparingTo("67200");
+        // (4000 + 6000 * 0.5) * 1.2 = 8400, below the minimum
+        assertThat(engine.fare(pricing, new BigDecimal("0.5"), VehicleType.BIKE_ECONOMY, false, 12_000))
+                .isEqualByComparingTo("12000");
+    }
+
+    @Test
+    void surgeMatchesTheBigDecimalFormulaOnRandomDistances() {
+        PricingSnapshot pricing = pricingRules.current();
+        Random random = new Random(43);
+        for (int i = 0; i < 100_000; i++) {
+            int scale = random.nextInt(12) - 1;
+            BigDecimal distanceKm = BigDecimal.valueOf(random.nextLong(-1_000_000, 100_000_000_000L), scale);
+            VehicleType type = VehicleType.values()[random.nextInt(VehicleType.values().length)];
+            boolean peakHour = random.nextBoolean();
+            long surge = random.nextLong(PricingSnapshot.BASIS, 3 * PricingSnapshot.BASIS);
+
+            assertThat(engine.fare(pricing, distanceKm, type, peakHour, surge))
+                    .as("%s km, %s, peak %s, surge %s", distanceKm, type, peakHour, surge)
+                    .isEqualTo(surgedFare(pricing, distanceKm, type, peakHour, surge));
+        }
+    }
+
+    private static BigDecimal surgedFare(PricingSnapshot pricing, BigDecimal distanceKm, VehicleType type,
+                                         boolean peakHour, long surge) {
+        BigDecimal fare = BigDecimal.valueOf(pricing.baseFare(type))
+                .add(BigDecimal.valueOf(pricing.perKmRate(type)).multiply(distanceKm));
+        if (peakHour) {
+            fare = fare.multiply(new BigDecimal("1.25"));
+        }
+        fare = fare.multiply(BigDecimal.valueOf(surge, 4));
+        return fare.max(BigDecimal.valueOf(12000)).setScale(-2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal legacyFare(BigDecimal distanceKm, VehicleType type, boolean isPeakHour) {
+        BigDecimal baseFare;
+        BigDecimal perKmRate;
+
+        switch (type) {
+            case BIKE -> {
+                baseFare = BigDecimal.valueOf(5000);
+                perKmRate = BigDecimal.valueOf(7000);
+            }
+            case BIKE_ECONOMY -> {
+                baseFare = BigDecimal.valueOf(4000);
+                perKmRate = BigDecimal.valueOf(6000);
+            }
+            case CAR_4_SEAT -> {
+                baseFare = BigDecimal.valueOf(10000);
+                perKmRate = BigDecimal.valueOf(11000);
+            }
+            case CAR_7_SEAT -> {
+                baseFare = BigDecimal.valueOf(15000);
+                perKmRate = BigDecimal.valueOf(13000);
+            }
+            case CAR_ECONOMY -> {
+                baseFare = BigDecimal.valueOf(8000);
+                perKmRate = BigDecimal.valueOf(9500);
+            }
+            case CAR_ELECTRIC -> {
+                baseFare = BigDecimal.valueOf(9000);
+                perKmRate = BigDecimal.valueOf(10500);
+            }
+            case CAR_PREMIUM -> {
+                baseFare = BigDecimal.valueOf(20000);
+                perKmRate = BigDecimal.valueOf(16000);
+            }
+            default -> {
+                baseFare = BigDecimal.valueOf(8000);
+                perKmRate = BigDecimal.valueOf(9000);
+            }
+        }
+
+        BigDecimal fare = baseFare.add(perKmRate.multiply(distanceKm));
+
+        if (isPeakHour) {
+            fare = fare.multiply(BigDecimal.valueOf(1.25));
+        }
+
+        BigDecimal minimumFare = BigDecimal.valueOf(12000);
+        if (fare.compareTo(minimumFare) < 0) {
+            fare = minimumFare;
+        }
+
+        return fare.setScale(-2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,161 @@
+package se360.trip_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import se360.trip_service.model.enums.VehicleType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PricingRulesTest {
+
+    @TempDir
+    Path dir;
+
+    private String defaults;
+    private Path file;
+
+    static PricingRules load(String location) {
+        return load(location, new SimpleMeterRegistry());
+    }
+
+    private static PricingRules load(String location, SimpleMeterRegistry meterRegistry) {
+        PricingRules rules = new PricingRules(new DefaultResourceLoader(), new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(rules, "location", location);
+        ReflectionTestUtils.setField(rules, "reloadCheckMs", 0L);
+        try {
+            rules.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rules;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        defaults = new ClassPathResource("pricing.json").getContentAsString(StandardCharsets.UTF_8);
+        file = dir.resolve("pricing.json");
+        Files.writeString(file, defaults);
+    }
+
+    @Test
+    void shippedRulesKeepTheRatesAndLeaveSurgeOff() {
+        PricingSnapshot pricing = load("classpath:pricing.json").current();
+
+        assertThat(pricing.minimumFare()).isEqualTo(12_000);
+        assertThat(pricing.peakMultiplier()).isEqualTo(12_500);
+        assertThat(pricing.baseFare(VehicleType.CAR_ECONOMY)).isEqualTo(8_000);
+        assertThat(pricing.perKmRate(VehicleType.CAR_ECONOMY)).isEqualTo(9_500);
+        assertThat(pricing.isPeakHour(LocalTime.of(18, 0))).isFalse();
+        assertThat(pricing.surgeEnabled()).isFalse();
+        assertThat(pricing.surgeMultiplier(100, 1)).isEqualTo(PricingSnapshot.BASIS);
+    }
+
+    @Test
+    void reloadPutsTheNewVersionInForce() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PricingRules rules = load(file.toUri().toString(), meterRegistry);
+        PricingSnapshot before = rules.current();
+
+        write(defaults.replace("\"2025.1\"", "\"2025.2\"").replace("\"baseFare\": 5000", "\"baseFare\": 6000"));
+        rules.reload();
+
+        assertThat(rules.current().version()).isEqualTo("2025.2");
+        assertThat(rules.current().baseFare(VehicleType.BIKE)).isEqualTo(6_000);
+        // Quotes holding the old snapshot keep pricing against it
+        assertThat(before.baseFare(VehicleType.BIKE)).isEqualTo(5_000);
+        assertThat(meterRegistry.get("trip.pricing.reloads").tag("result", "applied").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void invalidFileIsRejectedAndTheRulesInForceStay() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PricingRules rules = load(file.toUri().toString(), meterRegistry);
+
+        write(defaults.replace("\"2025.1\"", "\"2025.2\"").replace("\"perKmRate\": 16000", "\"perKmRate\": -16000"));
+        assertThatThrownBy(rules::reload).hasMessageContaining("CAR_PREMIUM");
+
+        write(defaults.replace("\"minimumFare\": 12000", "\"minimumFare\": 12050"));
+        assertThatThrownBy(rules::reload).hasMessageContaining("minimumFare");
+
+        assertThat(rules.current().version()).isEqualTo("2025.1");
+        assertThat(meterRegistry.get("trip.pricing.reloads").tag("result", "rejected").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void changedFileIsPickedUpOnce() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PricingRules rules = load(file.toUri().toString(), meterRegistry);
+
+        rules.reloadIfChanged();
+        assertThat(meterRegistry.get("trip.pricing.reloads").tag("result", "applied").counter().count())
+                .isZero();
+
+        write(defaults.replace("\"2025.1\"", "\"2025.2\""));
+        rules.reloadIfChanged();
+        rules.reloadIfChanged();
+
+        assertThat(rules.current().version()).isEqualTo("2025.2");
+        assertThat(meterRegistry.get("trip.pricing.reloads").tag("result", "applied").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void invalidFileFailsStartup() throws IOException {
+        write(defaults.replace("\"zone\": \"Asia/Ho_Chi_Minh\"", "\"zone\": \"Nowhere/Else\""));
+
+        assertThatThrownBy(() -> load(file.toUri().toString())).hasMessageContaining("Nowhere/Else");
+    }
+
+    @Test
+    void peakWindowsMayWrapMidnight() throws IOException {
+        write(defaults.replace("\"peakHours\": []", "\"peakHours\": [\"07:00-09:00\", \"22:30-01:00\"]"));
+        PricingSnapshot pricing = load(file.toUri().toString()).current();
+
+        assertThat(pricing.isPeakHour(LocalTime.of(6, 59))).isFalse();
+        assertThat(pricing.isPeakHour(LocalTime.of(7, 0))).isTrue();
+        assertThat(pricing.isPeakHour(LocalTime.of(9, 0))).isFalse();
+        assertThat(pricing.isPeakHour(LocalTime.of(23, 15))).isTrue();
+        assertThat(pricing.isPeakHour(LocalTime.of(0, 30))).isTrue();
+        assertThat(pricing.isPeakHour(LocalTime.of(1, 0))).isFalse();
+    }
+
+    @Test
+    void surgeUsesTheHighestTierReached() throws IOException {
+        write(defaults.replace("\"enabled\": false", "\"enabled\": true")
+                .replace("\"maxMultiplier\": 2.0", "\"maxMultiplier\": 1.8"));
+        PricingSnapshot pricing = load(file.toUri().toString()).current();
+
+        // Below minDemand nothing surges, however little supply there is
+        assertThat(pricing.surgeMultiplier(4, 0)).isEqualTo(10_000);
+        assertThat(pricing.surgeMultiplier(14, 10)).isEqualTo(10_000);
+        assertThat(pricing.surgeMultiplier(15, 10)).isEqualTo(12_000);
+        assertThat(pricing.surgeMultiplier(20, 10)).isEqualTo(15_000);
+        // Top tier is 2.0, capped at 1.8
+        assertThat(pricing.surgeMultiplier(30, 10)).isEqualTo(18_000);
+        assertThat(pricing.surgeMultiplier(5, 0)).isEqualTo(18_000);
+    }
+
+    private void write(String content) throws IOException {
+        FileTime previous = Files.getLastModifiedTime(file);
+        Files.writeString(file, content);
+        // Coarse file system clocks could otherwise leave the change unnoticed
+        Files.setLastModifiedTime(file, FileTime.fromMillis(previous.toMillis() + 1_000));
+    }
+}
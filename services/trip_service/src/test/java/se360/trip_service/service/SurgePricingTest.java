@@ -0,0 +1,161 @@
+package se360.trip_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs surge counting against an embedded Redis, with supply written the way
+ * driver-service writes it.
+ */
+class SurgePricingTest {
+
+    private static final double LAT = 10.7769;
+    private static final double LNG = 106.7009;
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @TempDir
+    Path dir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SurgePricing surgePricing;
+    private PricingSnapshot surgeOn;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        meterRegistry = new SimpleMeterRegistry();
+        surgePricing = new SurgePricing(redisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(surgePricing, "cellSizeDeg", 0.02);
+        ReflectionTestUtils.setField(surgePricing, "ttlMinutes", 15L);
+        ReflectionTestUtils.setField(surgePricing, "refreshMs", 60_000L);
+        ReflectionTestUtils.setField(surgePricing, "maxCells", 100L);
+        surgePricing.init();
+
+        Path file = dir.resolve("pricing.json");
+        Files.writeString(file, new ClassPathResource("pricing.json").getContentAsString(StandardCharsets.UTF_8)
+                .replace("\"enabled\": false", "\"enabled\": true"));
+        surgeOn = PricingRulesTest.load(file.toUri().toString()).current();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void demandOverSupplyPicksTheTier() {
+        for (int i = 0; i < 10; i++) {
+            surgePricing.recordDemand(LAT, LNG);
+        }
+        addSupply(LAT, LNG, "d1", "d2", "d3", "d4");
+        addSupply(LAT, LNG, "d1", "d2");
+
+        // 10 requests for 4 distinct drivers: ratio 2.5, the 1.5 tier
+        assertThat(surgePricing.multiplierBasisPoints(surgeOn, LAT, LNG)).isEqualTo(15_000);
+        assertThat(meterRegistry.get("trip.surge.multiplier").summary().max()).isEqualTo(1.5);
+        assertThat(redisTemplate.getExpire(demandKey(LAT, LNG))).isPositive();
+    }
+
+    @Test
+    void otherCellsAreUnaffected() {
+        for (int i = 0; i < 10; i++) {
+            surgePricing.recordDemand(LAT, LNG);
+        }
+
+        assertThat(surgePricing.multiplierBasisPoints(surgeOn, LAT + 0.05, LNG)).isEqualTo(PricingSnapshot.BASIS);
+    }
+
+    @Test
+    void countsAreReusedUntilTheRefresh() {
+        for (int i = 0; i < 10; i++) {
+            surgePricing.recordDemand(LAT, LNG);
+        }
+        assertThat(surgePricing.multiplierBasisPoints(surgeOn, LAT, LNG)).isEqualTo(20_000);
+
+        addSupply(LAT, LNG, "d1", "d2", "d3", "d4", "d5", "d6", "d7", "d8", "d9", "d10");
+
+        assertThat(surgePricing.multiplierBasisPoints(surgeOn, LAT, LNG)).isEqualTo(20_000);
+    }
+
+    @Test
+    void disabledSurgeDoesNotReadRedis() {
+        PricingSnapshot surgeOff = PricingRulesTest.load("classpath:pricing.json").current();
+        for (int i = 0; i < 10; i++) {
+            surgePricing.recordDemand(LAT, LNG);
+        }
+
+        assertThat(surgePricing.multiplierBasisPoints(surgeOff, LAT, LNG)).isEqualTo(PricingSnapshot.BASIS);
+    }
+
+    @Test
+    void demandIsCountedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        surgePricing.recordDemand(LAT, LNG);
+
+        assertThat(redisTemplate.hasKey(demandKey(LAT, LNG))).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(redisTemplate.opsForValue().get(demandKey(LAT, LNG))).isEqualTo("1");
+    }
+
+    private String demandKey(double lat, double lng) {
+        return SurgePricing.DEMAND_PREFIX + surgePricing.cellOf(lat, lng) + ":" + epochMinute();
+    }
+
+    private void addSupply(double lat, double lng, String... driverIds) {
+        redisTemplate.opsForHyperLogLog()
+                .add(SurgePricing.SUPPLY_PREFIX + surgePricing.cellOf(lat, lng) + ":" + epochMinute(), driverIds);
+    }
+
+    private static long epochMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,112 @@
+package se360.trip_service.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the assignment lock scripts against an embedded Redis.
+ */
+class TripAssignmentLockServiceTest {
+
+    private static final Duration TTL = Duration.ofSeconds(5);
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final TripAssignmentLockService lockService = new TripAssignmentLockService(redisTemplate);
+
+    private final UUID tripId = UUID.randomUUID();
+    private final UUID driverA = UUID.randomUUID();
+    private final UUID driverB = UUID.randomUUID();
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    @Test
+    void onlyOneDriverGetsTheLockAndTokensIncrease() {
+        long first = lockService.tryAcquire(tripId, driverA, TTL);
+        long second = lockService.tryAcquire(tripId, driverB, TTL);
+
+        assertThat(first).isPositive();
+        assertThat(second).isEqualTo(TripAssignmentLockService.HELD_BY_OTHER);
+
+        assertThat(lockService.release(tripId, driverA, first)).isTrue();
+        assertThat(lockService.tryAcquire(tripId, driverB, TTL)).isGreaterThan(first);
+    }
+
+    @Test
+    void closedTripIsRejectedWithoutTakingTheLock() {
+        redisTemplate.opsForValue().set(TripStateCache.KEY_PREFIX + tripId, "ASSIGNED");
+
+        assertThat(lockService.tryAcquire(tripId, driverA, TTL)).isEqualTo(TripAssignmentLockService.TRIP_CLOSED);
+        assertThat(redisTemplate.hasKey("lock:trip:assign:" + tripId)).isFalse();
+    }
+
+    @Test
+    void searchingTripCanBeLocked() {
+        redisTemplate.opsForValue().set(TripStateCache.KEY_PREFIX + tripId, "SEARCHING");
+
+        assertThat(lockService.tryAcquire(tripId, driverA, TTL)).isPositive();
+    }
+
+    @Test
+    void expiredLeaseCanNeitherReleaseNorExtendTheNewHoldersLock() throws Exception {
+        long stale = lockService.tryAcquire(tripId, driverA, Duration.ofMillis(50));
+        Thread.sleep(100);
+        long current = lockService.tryAcquire(tripId, driverB, TTL);
+
+        assertThat(current).isGreaterThan(stale);
+        assertThat(lockService.release(tripId, driverA, stale)).isFalse();
+        assertThat(lockService.extend(tripId, driverA, stale, TTL)).isFalse();
+        assertThat(lockService.tryAcquire(tripId, driverA, TTL)).isEqualTo(TripAssignmentLockService.HELD_BY_OTHER);
+
+        assertThat(lockService.extend(tripId, driverB, current, TTL)).isTrue();
+        assertThat(lockService.release(tripId, driverB, current)).isTrue();
+    }
+
+    @Test
+    void sameDriverWithOldTokenCannotReleaseNewLease() {
+        long first = lockService.tryAcquire(tripId, driverA, TTL);
+        lockService.release(tripId, driverA, first);
+        long second = lockService.tryAcquire(tripId, driverA, TTL);
+
+        assertThat(lockService.release(tripId, driverA, first)).isFalse();
+        assertThat(lockService.release(tripId, driverA, second)).isTrue();
+    }
+}
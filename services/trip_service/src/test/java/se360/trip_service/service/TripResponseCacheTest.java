@@ -0,0 +1,106 @@
+package se360.trip_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se360.trip_service.model.dtos.TripResponse;
+import se360.trip_service.model.enums.TripStatus;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TripResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TripResponseCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TripResponseCache(meterRegistry);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        cache.init();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void repeatedPollsLoadOnce() {
+        UUID tripId = UUID.randomUUID();
+
+        assertThat(cache.get(tripId, this::load)).map(TripResponse::getTripStatus).contains(TripStatus.SEARCHING);
+        assertThat(cache.get(tripId, this::load)).isPresent();
+
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "trip.response").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "trip.response").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void unknownTripIsNotCached() {
+        UUID tripId = UUID.randomUUID();
+
+        assertThat(cache.get(tripId, id -> missing())).isEmpty();
+        assertThat(cache.get(tripId, id -> missing())).isEmpty();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        UUID tripId = UUID.randomUUID();
+        cache.get(tripId, this::load);
+
+        cache.invalidate(tripId);
+        cache.get(tripId, this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void transitionIsServedOnlyAfterCommit() {
+        UUID tripId = UUID.randomUUID();
+        cache.get(tripId, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put(response(tripId, TripStatus.CANCELLED));
+
+        // Dropped while the transaction is open, so polls go back to the database
+        assertThat(cache.get(tripId, this::load)).map(TripResponse::getTripStatus).contains(TripStatus.SEARCHING);
+        assertThat(loads).hasValue(2);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.get(tripId, this::load)).map(TripResponse::getTripStatus).contains(TripStatus.CANCELLED);
+        assertThat(loads).hasValue(2);
+    }
+
+    private Optional<TripResponse> load(UUID tripId) {
+        loads.incrementAndGet();
+        return Optional.of(response(tripId, TripStatus.SEARCHING));
+    }
+
+    private Optional<TripResponse> missing() {
+        loads.incrementAndGet();
+        return Optional.empty();
+    }
+
+    private static TripResponse response(UUID tripId, TripStatus status) {
+        return TripResponse.builder().id(tripId).tripStatus(status).build();
+    }
+}
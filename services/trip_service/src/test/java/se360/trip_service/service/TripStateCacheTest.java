@@ -0,0 +1,111 @@
+package se360.trip_service.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+import se360.trip_service.model.enums.TripStatus;
+
+import java.net.ServerSocket;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the state cache against an embedded Redis; transactions are simulated
+ * by driving the registered synchronizations by hand.
+ */
+class TripStateCacheTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private TripStateCache cache;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        cache = new TripStateCache(redisTemplate);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 120L);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void assignedTripIsClosedForAccept() {
+        UUID tripId = UUID.randomUUID();
+
+        cache.put(tripId, TripStatus.ASSIGNED);
+
+        assertThat(cache.isClosedForAccept(tripId)).isTrue();
+    }
+
+    @Test
+    void searchingOrUnknownTripIsNotClosed() {
+        UUID searching = UUID.randomUUID();
+        cache.put(searching, TripStatus.SEARCHING);
+
+        assertThat(cache.isClosedForAccept(searching)).isFalse();
+        assertThat(cache.isClosedForAccept(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void transitionIsWrittenOnlyAfterCommit() {
+        UUID tripId = UUID.randomUUID();
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put(tripId, TripStatus.ASSIGNED);
+        assertThat(cache.get(tripId)).isEmpty();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.get(tripId)).contains(TripStatus.ASSIGNED);
+    }
+
+    @Test
+    void rolledBackTransitionIsNeverVisible() {
+        UUID tripId = UUID.randomUUID();
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put(tripId, TripStatus.ASSIGNED);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(cache.get(tripId)).isEmpty();
+        assertThat(cache.isClosedForAccept(tripId)).isFalse();
+    }
+}
@@ -0,0 +1,102 @@
+package se360.trip_service.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records write positions from an embedded PostgreSQL into an embedded Redis,
+ * through a primary pool of a single connection: a write that borrowed a
+ * second connection after commit would time out and record nothing.
+ */
+class WrittenLsnStoreTest {
+
+    private static EmbeddedPostgres postgres;
+    private static HikariDataSource primary;
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private WrittenLsnStore store;
+
+    @BeforeAll
+    static void start() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        primary = new HikariDataSource();
+        primary.setDataSource(postgres.getPostgresDatabase());
+        primary.setMaximumPoolSize(1);
+        primary.setConnectionTimeout(250);
+        new JdbcTemplate(primary).execute("CREATE TABLE IF NOT EXISTS lsn_probe (id int)");
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+        primary.close();
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        store = new WrittenLsnStore(redisTemplate, primary);
+        ReflectionTestUtils.setField(store, "ttlSeconds", 30L);
+    }
+
+    @Test
+    void positionIsReadOnTheConnectionTheTransactionStillHolds() {
+        UUID tripId = UUID.randomUUID();
+        UUID passengerId = UUID.randomUUID();
+        JdbcTemplate jdbc = new JdbcTemplate(primary);
+
+        new TransactionTemplate(new DataSourceTransactionManager(primary)).executeWithoutResult(status -> {
+            jdbc.update("INSERT INTO lsn_probe VALUES (1)");
+            store.recordWrite(tripId, passengerId);
+        });
+
+        long recorded = store.forTrip(tripId);
+        assertThat(recorded).isPositive();
+        assertThat(store.forPassenger(passengerId)).isEqualTo(recorded);
+        assertThat(primary.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    @Test
+    void positionOfCommittedWritesOutsideATransaction() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        store.recordWrites(List.of(first, second));
+
+        assertThat(store.forTrip(first)).isPositive().isEqualTo(store.forTrip(second));
+    }
+}